@@ -0,0 +1,58 @@
+package io.openshift.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NameGenerator#next()} with a part of the name space already used: the cost per call should not
+ * depend on it. Runs with 4 threads to include the contention on the counter.
+ * <p>
+ * A timed run would go through the whole name space many times per iteration, whatever {@code used}. Instead each
+ * iteration starts from a new generator and is a single invocation of {@value #NAMES} names per thread, so the
+ * {@code 0.99} case stays within the last 1% of the space.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 500)
+@Measurement(iterations = 500)
+@Fork(1)
+@Threads(4)
+public class NameGeneratorBenchmark {
+
+    private static final int NAMES = 256;
+
+    @Param({"0", "0.5", "0.99"})
+    public double used;
+
+    private NameGenerator generator;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        generator = new NameGenerator(42);
+        generator.skip((long) (generator.size() * used));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NAMES)
+    public void next(Blackhole blackhole) {
+        for (int i = 0; i < NAMES; i++) {
+            blackhole.consume(generator.next());
+        }
+    }
+}
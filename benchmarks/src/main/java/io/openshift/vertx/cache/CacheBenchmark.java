@@ -0,0 +1,117 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Context;
+import io.vertx.reactivex.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Cache#get(Object)} and {@link Cache#put(Object, Object, long)} against an in-memory remote
+ * cache, with and without the near cache, with the asynchronous Hot Rod API or the blocking one run on the worker
+ * pool ({@code cache.blocking}).
+ * <p>
+ * Operations are started on a single event-loop context, as in the verticle, and awaited from the benchmark
+ * thread, so the numbers include the hop to the context. The {@code concurrent} variants keep
+ * {@value #CONCURRENCY} operations in flight, where the blocking mode is bounded by the worker pool size.
+ * <p>
+ * At the end of each trial, the peak number of live threads of the JVM and the number of Vert.x worker threads
+ * started are printed, to compare the threads each mode needs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    private static final String KEY = "NAME";
+    private static final int CONCURRENCY = 100;
+
+    @Param({"true", "false"})
+    public boolean near;
+
+    @Param({"false", "true"})
+    public boolean blocking;
+
+    private Vertx vertx;
+    private Context context;
+    private Cache<String, String> cache;
+    private String value;
+
+    @Setup
+    public void setUp() throws Exception {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        vertx = Vertx.vertx();
+        // Created once: from a non Vert.x thread, each operation would otherwise create its own context.
+        context = vertx.getOrCreateContext();
+        cache = Cache.wrap(vertx, InMemoryRemoteCache.create(new CompactMarshaller()), new JsonObject()
+            .put("cache.near.max-entries", near ? 1000 : 0)
+            .put("cache.near.ttl", 3600)
+            .put("cache.blocking", blocking));
+        value = new TimedValue("Crimson Fox", Long.MAX_VALUE).encode();
+        onContext(cache.put(KEY, value, 3600).toSingleDefault(true));
+    }
+
+    @TearDown
+    public void tearDown() {
+        long workers = Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("vert.x-worker-thread"))
+            .count();
+        System.out.println("near=" + near + " blocking=" + blocking + ": peak live threads "
+            + ManagementFactory.getThreadMXBean().getPeakThreadCount() + ", Vert.x worker threads " + workers);
+        vertx.rxClose().blockingAwait();
+    }
+
+    @Benchmark
+    public Optional<String> get() throws Exception {
+        return onContext(cache.get(KEY));
+    }
+
+    @Benchmark
+    public boolean put() throws Exception {
+        return onContext(cache.put(KEY, value, 3600).toSingleDefault(true));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public long concurrentGet() throws Exception {
+        return onContext(Flowable.range(0, CONCURRENCY).flatMapSingle(i -> cache.get(KEY)).count());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public long concurrentPut() throws Exception {
+        return onContext(Flowable.range(0, CONCURRENCY)
+            .flatMapCompletable(i -> cache.put(KEY, value, 3600))
+            .toSingleDefault(0L));
+    }
+
+    /**
+     * Subscribes on the benchmark context and waits for the result.
+     */
+    private <T> T onContext(Single<T> operation) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        context.runOnContext(x -> operation.subscribe(result::complete, result::completeExceptionally));
+        return result.get();
+    }
+}
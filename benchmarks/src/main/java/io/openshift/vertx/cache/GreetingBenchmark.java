@@ -0,0 +1,87 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Single;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Context;
+import io.vertx.reactivex.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the greeting pipeline of {@link CacheVerticle}: reading the name through {@link NameCache} (cache
+ * hit), building and encoding the JSON response. The name service is replaced by a constant.
+ * <p>
+ * As in the verticle, the pipeline runs on a single event-loop context, awaited from the benchmark thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreetingBenchmark {
+
+    private static final String KEY = "NAME";
+
+    @Param({"true", "false"})
+    public boolean near;
+
+    private Vertx vertx;
+    private Context context;
+    private NameCache names;
+
+    @Setup
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        // Created once: from a non Vert.x thread, each read would otherwise create its own context.
+        context = vertx.getOrCreateContext();
+        JsonObject config = new JsonObject()
+            .put("cache.ttl", 3600)
+            .put("cache.near.max-entries", near ? 1000 : 0)
+            .put("cache.near.ttl", 3600);
+        Cache<String, String> cache = Cache.wrap(vertx, InMemoryRemoteCache.create(new CompactMarshaller()),
+            config);
+        names = onContext(Single.fromCallable(() -> new NameCache(vertx, cache, key -> Single.just("Crimson Fox"),
+            config)));
+        onContext(names.get(KEY));
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.rxClose().blockingAwait();
+    }
+
+    @Benchmark
+    public String greeting() throws Exception {
+        return onContext(names.get(KEY)
+            .map(name -> new JsonObject().put("message", "Hello " + name))
+            .map(JsonObject::encode));
+    }
+
+    @Benchmark
+    public String encodeResponse() {
+        return new JsonObject().put("message", "Hello " + "Crimson Fox").encode();
+    }
+
+    /**
+     * Subscribes on the benchmark context and waits for the result.
+     */
+    private <T> T onContext(Single<T> operation) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        context.runOnContext(x -> operation.subscribe(result::complete, result::completeExceptionally));
+        return result.get();
+    }
+}
@@ -0,0 +1,69 @@
+package io.openshift.vertx.cache;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CompactMarshaller} with the Hot Rod client default (JBoss) marshaller on the keys and values
+ * used by the greeting service: the key and the encoded {@link TimedValue}. Run with {@code -prof gc} to get the
+ * allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarshallerBenchmark {
+
+    @Param({"compact", "jboss"})
+    public String marshaller;
+
+    private Marshaller m;
+    private String key;
+    private String value;
+    private byte[] marshalledKey;
+    private byte[] marshalledValue;
+
+    @Setup
+    public void setUp() throws Exception {
+        m = "compact".equals(marshaller) ? new CompactMarshaller() : new GenericJBossMarshaller();
+        key = "NAME";
+        value = new TimedValue("Crimson Fox", System.currentTimeMillis()).encode();
+        marshalledKey = m.objectToByteBuffer(key);
+        marshalledValue = m.objectToByteBuffer(value);
+    }
+
+    @Benchmark
+    public byte[] marshalKey() throws Exception {
+        return m.objectToByteBuffer(key);
+    }
+
+    @Benchmark
+    public Object unmarshalKey() throws Exception {
+        return m.objectFromByteBuffer(marshalledKey);
+    }
+
+    @Benchmark
+    public byte[] marshalValue() throws Exception {
+        return m.objectToByteBuffer(value);
+    }
+
+    @Benchmark
+    public Object unmarshalValue() throws Exception {
+        return m.objectFromByteBuffer(marshalledValue);
+    }
+}
@@ -12,10 +12,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.restassured.RestAssured.get;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.awaitility.Awaitility.setDefaultTimeout;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 
 public class CuteNameServiceVerticleTest {
@@ -58,5 +60,20 @@ public class CuteNameServiceVerticleTest {
         get("/api/name").then().statusCode(200).body("name", is(not(empty())));
     }
 
+    @Test
+    public void testWeGetNames() {
+        get("/api/names?count=3").then().statusCode(200).body("names", hasSize(3));
+    }
 
+    @Test
+    public void testWeStreamNames() {
+        String body = get("/api/names/stream?count=5").then().statusCode(200).extract().asString();
+        assertThat(body.split("\n")).hasSize(5).allMatch(line -> line.startsWith("{\"name\":"));
+    }
+
+    @Test
+    public void testInvalidCount() {
+        get("/api/names?count=0").then().statusCode(400);
+        get("/api/names/stream?count=abc").then().statusCode(400);
+    }
 }
\ No newline at end of file
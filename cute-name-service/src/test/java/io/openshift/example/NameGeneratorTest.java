@@ -0,0 +1,28 @@
+package io.openshift.example;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NameGeneratorTest {
+
+    @Test
+    public void testNamesAreUniqueUntilTheSpaceIsUsedUp() {
+        NameGenerator generator = new NameGenerator(42);
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < generator.size(); i++) {
+            assertThat(names.add(generator.next())).isTrue();
+        }
+        // The sequence starts again.
+        assertThat(names).contains(generator.next());
+    }
+
+    @Test
+    public void testNamesAreTitleCased() {
+        String name = new NameGenerator(42).next();
+        assertThat(name).matches("[A-Z][a-z]+ [A-Z][a-z]+");
+    }
+}
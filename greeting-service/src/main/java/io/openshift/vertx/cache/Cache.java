@@ -1,66 +1,369 @@
 package io.openshift.vertx.cache;
 
+import io.micrometer.core.instrument.Timer;
 import io.reactivex.Completable;
 import io.reactivex.Single;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Context;
 import io.vertx.reactivex.core.Vertx;
+import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.RemoteCache;
-import org.infinispan.client.hotrod.RemoteCacheManager;
-import org.infinispan.client.hotrod.configuration.Configuration;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.configuration.ClientIntelligence;
 import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.commons.marshall.Marshaller;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Manages the interactions with the Cache server.
+ * <p>
+ * The Hot Rod client is shared by the instances created with the same configuration in a Vert.x instance, so
+ * verticles deployed on several event loops use the same connection pools. Each instance delivers its results on
+ * the context that called it.
+ * <p>
+ * Reads are served from a bounded {@link NearCache} when possible, the remote cache is only contacted on a local
+ * miss. Each instance has its own near cache, so reads on different event loops do not contend; writes invalidate
+ * the near caches of all the instances sharing the client. The near cache is configured with
+ * {@code cache.near.max-entries} (per instance, default 1000, {@code 0} disables it) and {@code cache.near.ttl} (in
+ * seconds, default 1).
+ * <p>
+ * Remote operations use the asynchronous Hot Rod API, results are delivered on the calling Vert.x context. Setting
+ * {@code cache.blocking} to {@code true} falls back to the blocking API run on the worker pool.
+ * <p>
+ * When {@code cache.batch.size} is greater than 1, single-key reads missing the near cache are grouped (up to
+ * {@code cache.batch.size} keys, or for {@code cache.batch.window} milliseconds) and sent as one bulk read.
  */
 public class Cache<K, V> {
 
     private final Vertx vertx;
+    private final SharedResource<RemoteClient<K, V>> client;
     private final RemoteCache<K, V> cache;
-    private static RemoteCacheManager rcm;
+    private final NearCacheGroup<K, V> group;
+    private final NearCache<K, V> near;
+    private final boolean blocking;
+    private final GetBatcher<K, V> batcher;
+    private final Timer getTimer = Metrics.timer("cache.remote", "operation", "get");
+    private final Timer putTimer = Metrics.timer("cache.remote", "operation", "put");
+    private final Timer removeTimer = Metrics.timer("cache.remote", "operation", "remove");
 
     public static <K, V> Single<Cache<K, V>> create(Vertx vertx) {
-        Configuration config = new ConfigurationBuilder().addServer().host("cache-server").port(11222).build();
-        rcm = new RemoteCacheManager(config);
+        return create(vertx, new JsonObject());
+    }
+
+    public static <K, V> Single<Cache<K, V>> create(Vertx vertx, JsonObject json) {
+        SharedResource<RemoteClient<K, V>> client = SharedResource.lookup(vertx, "cache-client:" + json.encode(),
+            () -> RemoteClient.start(json), RemoteClient::stop);
         return vertx.
-            <RemoteCache<K, V>>rxExecuteBlocking(
+            <Cache<K, V>>rxExecuteBlocking(
                 future -> {
-                    RemoteCache<K, V> cache = rcm.getCache();
-                    future.complete(cache);
+                    // The first instance starts the client (connecting to the servers), the others reuse it.
+                    RemoteClient<K, V> rc = client.acquire();
+                    future.complete(new Cache<>(vertx, client, rc.cache(), rc.near(), json));
                 }
             )
-            .toSingle()
-            .map(rc -> new Cache<>(vertx, rc));
+            .toSingle();
+    }
+
+    /**
+     * Wraps a remote cache whose manager is owned by the caller ({@link #close()} does not stop it).
+     */
+    static <K, V> Cache<K, V> wrap(Vertx vertx, RemoteCache<K, V> rc, JsonObject json) {
+        NearCacheGroup<K, V> group = NearCacheGroup.create(json);
+        group.bind(Metrics.registry());
+        return new Cache<>(vertx, null, rc, group, json);
+    }
+
+    /**
+     * Builds the Hot Rod client configuration from the verticle configuration:
+     * <ul>
+     * <li>{@code cache.servers}: the servers, either as an array of {@code host:port} or as a
+     * {@code host:port;host:port} string (default {@code cache-server:11222})</li>
+     * <li>{@code cache.pool.max-active}, {@code cache.pool.min-idle}, {@code cache.pool.max-wait}: connection
+     * pool sizing (per server), the wait is in milliseconds</li>
+     * <li>{@code cache.socket-timeout}, {@code cache.connect-timeout}: in milliseconds</li>
+     * <li>{@code cache.tcp-no-delay}: {@code true} by default</li>
+     * <li>{@code cache.intelligence}: {@code BASIC}, {@code TOPOLOGY_AWARE} or {@code HASH_DISTRIBUTION_AWARE}
+     * (default), the latter routes each operation to the owner of the key</li>
+     * <li>{@code cache.marshaller}: {@code default} (the Hot Rod client default), {@code compact} (see
+     * {@link CompactMarshaller}) or the class name of a {@link Marshaller}. The marshaller also encodes the keys:
+     * clients using different marshallers do not see each other's entries</li>
+     * </ul>
+     * Unset entries keep the Hot Rod client defaults.
+     */
+    static ConfigurationBuilder configuration(JsonObject json) {
+        ConfigurationBuilder builder = new ConfigurationBuilder();
+        Object servers = json.getValue("cache.servers");
+        if (servers == null) {
+            builder.addServers("cache-server:11222");
+        } else if (servers instanceof JsonArray) {
+            builder.addServers(((JsonArray) servers).stream().map(Object::toString).collect(Collectors.joining(";")));
+        } else {
+            builder.addServers(servers.toString());
+        }
+        if (json.containsKey("cache.pool.max-active")) {
+            builder.connectionPool().maxActive(json.getInteger("cache.pool.max-active"));
+        }
+        if (json.containsKey("cache.pool.min-idle")) {
+            builder.connectionPool().minIdle(json.getInteger("cache.pool.min-idle"));
+        }
+        if (json.containsKey("cache.pool.max-wait")) {
+            builder.connectionPool().maxWait(json.getLong("cache.pool.max-wait"));
+        }
+        if (json.containsKey("cache.socket-timeout")) {
+            builder.socketTimeout(json.getInteger("cache.socket-timeout"));
+        }
+        if (json.containsKey("cache.connect-timeout")) {
+            builder.connectionTimeout(json.getInteger("cache.connect-timeout"));
+        }
+        builder.tcpNoDelay(json.getBoolean("cache.tcp-no-delay", true));
+        builder.clientIntelligence(ClientIntelligence.valueOf(
+            json.getString("cache.intelligence", ClientIntelligence.HASH_DISTRIBUTION_AWARE.name())));
+        String marshaller = json.getString("cache.marshaller", "default");
+        if ("compact".equals(marshaller)) {
+            builder.marshaller(new CompactMarshaller());
+        } else if (!"default".equals(marshaller)) {
+            builder.marshaller(marshaller);
+        }
+        return builder;
     }
 
-    private Cache(Vertx vertx, RemoteCache<K, V> rc) {
+    private Cache(Vertx vertx, SharedResource<RemoteClient<K, V>> client, RemoteCache<K, V> rc,
+                  NearCacheGroup<K, V> group, JsonObject json) {
         this.vertx = vertx;
+        this.client = client;
         this.cache = rc;
+        this.group = group;
+        this.near = group.add();
+        this.blocking = json.getBoolean("cache.blocking", false);
+        int batchSize = json.getInteger("cache.batch.size", 0);
+        long batchWindow = json.getLong("cache.batch.window", 1L);
+        if (batchSize > 1 && batchWindow < 1) {
+            // Vert.x timers need a delay of at least 1 millisecond.
+            throw new IllegalArgumentException("Invalid cache.batch.window, at least 1 millisecond is expected");
+        }
+        this.batcher = batchSize > 1 ? new GetBatcher<>(vertx, this::remoteGetAll, batchSize, batchWindow) : null;
     }
 
     public Completable remove(K key) {
-        return vertx.rxExecuteBlocking(
-            future -> {
-                cache.remove(key);
-                future.complete();
-            }
-        ).ignoreElement();
+        group.invalidate(key);
+        Completable remove;
+        if (blocking) {
+            remove = vertx.rxExecuteBlocking(
+                future -> {
+                    cache.remove(key);
+                    future.complete();
+                }
+            ).ignoreElement();
+        } else {
+            remove = toCompletable(() -> cache.removeAsync(key));
+        }
+        return Metrics.time(remove, removeTimer).doOnComplete(() -> group.invalidate(key));
     }
 
     public Single<Optional<V>> get(K key) {
         // While this method can use the Maybe type, I found easier to use an Optional.
-        return vertx.<Optional<V>>rxExecuteBlocking(future -> {
-            V value = cache.get(key);
-            future.complete(Optional.ofNullable(value));
-        }).toSingle();
+        V local = near.get(key);
+        if (local != null) {
+            return Single.just(Optional.of(local));
+        }
+        long token = near.token();
+        Single<Optional<V>> get;
+        if (batcher != null) {
+            get = batcher.get(key);
+        } else if (blocking) {
+            get = vertx.<Optional<V>>rxExecuteBlocking(future -> {
+                V value = cache.get(key);
+                future.complete(Optional.ofNullable(value));
+            }).toSingle();
+        } else {
+            get = toSingle(() -> cache.getAsync(key).thenApply(Optional::ofNullable));
+        }
+        return Metrics.time(get, getTimer).doOnSuccess(maybe -> maybe.ifPresent(value -> near.put(key, value, token)));
     }
 
     public Completable put(K key, V value, long ttl) {
-        return vertx.rxExecuteBlocking(future -> {
-            cache.put(key, value, ttl, TimeUnit.SECONDS);
-            future.complete();
-        }).ignoreElement();
+        // The local copy is dropped (before and after the write, so a concurrent read cannot bring the old value
+        // back) rather than updated. The next read fetches the value.
+        group.invalidate(key);
+        Completable put;
+        if (blocking) {
+            put = vertx.rxExecuteBlocking(future -> {
+                cache.put(key, value, ttl, TimeUnit.SECONDS);
+                future.complete();
+            }).ignoreElement();
+        } else {
+            put = toCompletable(() -> cache.putAsync(key, value, ttl, TimeUnit.SECONDS));
+        }
+        return Metrics.time(put, putTimer).doOnComplete(() -> group.invalidate(key));
+    }
+
+    /**
+     * Reads a value along with its version on the server, for a later {@link #replace(Object, Object, long)}. The
+     * near cache is bypassed. Meant for rare conditional updates: it runs the blocking API on the worker pool.
+     */
+    public Single<Optional<VersionedValue<V>>> getVersioned(K key) {
+        return vertx.<Optional<VersionedValue<V>>>rxExecuteBlocking(
+            future -> future.complete(Optional.ofNullable(cache.getWithMetadata(key))), false)
+            .toSingle();
+    }
+
+    /**
+     * Stores a value without lifespan, unless the key is already present.
+     *
+     * @return whether the value was stored
+     */
+    public Single<Boolean> putIfAbsent(K key, V value) {
+        group.invalidate(key);
+        return vertx.<Boolean>rxExecuteBlocking(
+            future -> future.complete(cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, value) == null),
+            false)
+            .toSingle()
+            .doOnSuccess(stored -> group.invalidate(key));
+    }
+
+    /**
+     * Replaces a value without lifespan, unless it changed since {@code version} was read with
+     * {@link #getVersioned(Object)}.
+     *
+     * @return whether the value was replaced
+     */
+    public Single<Boolean> replace(K key, V value, long version) {
+        group.invalidate(key);
+        return vertx.<Boolean>rxExecuteBlocking(
+            future -> future.complete(cache.replaceWithVersion(key, value, version)), false)
+            .toSingle()
+            .doOnSuccess(replaced -> group.invalidate(key));
+    }
+
+    /**
+     * Reads several keys at once. Keys available in the near cache are not sent to the server.
+     *
+     * @return the entries found, missing keys are absent from the map
+     */
+    public Single<Map<K, V>> getAll(Set<K> keys) {
+        Map<K, V> result = new HashMap<>();
+        Set<K> missing = new HashSet<>();
+        for (K key : keys) {
+            V local = near.get(key);
+            if (local != null) {
+                result.put(key, local);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Single.just(result);
+        }
+        long token = near.token();
+        return remoteGetAll(missing)
+            .map(found -> {
+                found.forEach((key, value) -> near.put(key, value, token));
+                result.putAll(found);
+                return result;
+            });
+    }
+
+    public Completable putAll(Map<K, V> entries, long ttl) {
+        entries.keySet().forEach(group::invalidate);
+        Completable put;
+        if (blocking) {
+            put = vertx.rxExecuteBlocking(future -> {
+                cache.putAll(entries, ttl, TimeUnit.SECONDS);
+                future.complete();
+            }).ignoreElement();
+        } else {
+            put = toCompletable(() -> cache.putAllAsync(entries, ttl, TimeUnit.SECONDS));
+        }
+        return put.doOnComplete(() -> entries.keySet().forEach(group::invalidate));
+    }
+
+    public Completable removeAll(Set<K> keys) {
+        keys.forEach(group::invalidate);
+        Completable remove;
+        if (blocking) {
+            remove = vertx.rxExecuteBlocking(future -> {
+                keys.forEach(cache::remove);
+                future.complete();
+            }).ignoreElement();
+        } else {
+            // Hot Rod has no bulk removal, the removals are pipelined instead.
+            remove = toCompletable(() -> CompletableFuture.allOf(
+                keys.stream().map(cache::removeAsync).toArray(CompletableFuture[]::new)));
+        }
+        return remove.doOnComplete(() -> keys.forEach(group::invalidate));
+    }
+
+    private Single<Map<K, V>> remoteGetAll(Set<K> keys) {
+        // The Hot Rod client does not offer an asynchronous getAll, the bulk read runs on the worker pool. It is
+        // not ordered so concurrent batches do not wait for each other.
+        return vertx.<Map<K, V>>rxExecuteBlocking(future -> future.complete(cache.getAll(keys)), false)
+            .toSingle();
+    }
+
+    /**
+     * Runs an asynchronous Hot Rod operation and emits its result on the calling Vert.x context.
+     */
+    private <T> Single<T> toSingle(Supplier<CompletableFuture<T>> operation) {
+        return Single.create(emitter -> {
+            Context context = vertx.getOrCreateContext();
+            operation.get().whenComplete((result, failure) -> context.runOnContext(x -> {
+                if (failure != null) {
+                    emitter.onError(failure);
+                } else {
+                    emitter.onSuccess(result);
+                }
+            }));
+        });
+    }
+
+    /**
+     * Same as {@link #toSingle(Supplier)} when the result of the operation is irrelevant (and may be {@code null}).
+     */
+    private Completable toCompletable(Supplier<? extends CompletableFuture<?>> operation) {
+        return Completable.create(emitter -> {
+            Context context = vertx.getOrCreateContext();
+            operation.get().whenComplete((result, failure) -> context.runOnContext(x -> {
+                if (failure != null) {
+                    emitter.onError(failure);
+                } else {
+                    emitter.onComplete();
+                }
+            }));
+        });
+    }
+
+    /**
+     * Releases the Hot Rod client. It is stopped, closing its connections, once every {@link Cache} using it is
+     * closed.
+     */
+    public Completable close() {
+        group.remove(near);
+        if (client == null) {
+            return Completable.complete();
+        }
+        return vertx.rxExecuteBlocking(
+            future -> {
+                client.release();
+                future.complete();
+            }
+        ).ignoreElement();
+    }
+
+    /**
+     * @return the hit, miss, invalidation and eviction counters of the near caches sharing the Hot Rod client.
+     */
+    public JsonObject stats() {
+        return group.stats();
     }
 
 }
@@ -1,53 +1,112 @@
 package io.openshift.vertx.cache;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.reactivex.Completable;
-import io.reactivex.Single;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
-import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.micrometer.PrometheusScrapingHandler;
 import io.vertx.reactivex.CompletableHelper;
 import io.vertx.reactivex.core.AbstractVerticle;
+import io.vertx.reactivex.core.RxHelper;
 import io.vertx.reactivex.ext.web.Router;
 import io.vertx.reactivex.ext.web.RoutingContext;
-import io.vertx.reactivex.ext.web.client.HttpResponse;
-import io.vertx.reactivex.ext.web.client.WebClient;
 import io.vertx.reactivex.ext.web.handler.BodyHandler;
 import io.vertx.reactivex.ext.web.handler.StaticHandler;
 
-import java.util.Optional;
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Exposes the greeting HTTP API. Several instances are deployed (see {@link MainVerticle}), they share the cache
+ * client, the name service client and the in-flight loads. The TTL policy is stored in the remote cache, see
+ * {@link NameCache}.
+ * <p>
+ * Greetings are cached per tenant and locale, see {@link GreetingKey}. Hot keys are preloaded before {@code /health}
+ * reports the service ready, see {@link WarmUp} and {@link Readiness}. With {@code startup.fast}, the HTTP server
+ * listens while the instance connects to the cache and warms up, the API answering 503 until connected. The
+ * connection is then retried until it succeeds, waiting 1 second after the first failure, and twice as long after
+ * each other failure, up to 30 seconds.
+ */
 public class CacheVerticle extends AbstractVerticle {
 
-    private static final String KEY = "NAME";
+    private static final long INITIAL_RETRY_DELAY = 1_000;
+    private static final long MAX_RETRY_DELAY = 30_000;
+
     private Cache<String, String> cache;
-    private WebClient client;
-    private int ttl = 10;
+    private NameCache names;
+    private SharedResource<NameServiceClient> sharedClient;
+    private NameServiceClient client;
+    private Readiness readiness;
+    // Set when stopped, a cache connected afterwards is closed right away.
+    private boolean stopped;
+    private final Counter cachedHits =
+        Metrics.counter("greeting.cache.requests", "handler", "cached", "result", "hit");
+    private final Counter cachedMisses =
+        Metrics.counter("greeting.cache.requests", "handler", "cached", "result", "miss");
     private final Logger LOGGER = LoggerFactory.getLogger("Cache-Verticle");
 
     @Override
     public void start(Future<Void> future) {
-        ttl = config().getInteger("cache.ttl", 5);
         // HTTP API
         Router router = Router.router(vertx);
         router.route().handler(BodyHandler.create());
+        router.route("/api/*").handler(rc -> {
+            if (names == null) {
+                rc.response().setStatusCode(503).end("Starting");
+            } else {
+                rc.next();
+            }
+        });
         router.get("/api/greeting").handler(this::greeting);
         router.get("/api/cached").handler(this::isCached);
         router.delete("/api/cached").handler(this::clearTheValue);
+        router.get("/api/ttl").handler(this::getTTL);
         router.post("/api/ttl").handler(this::setTTL);
-        router.get("/health").handler(rc -> rc.response().end("OK"));
+        router.get("/api/cache/stats").handler(this::stats);
+        readiness = Readiness.get(vertx);
+        router.get("/health").handler(rc -> {
+            if (readiness.isReady()) {
+                rc.response().end("OK");
+            } else {
+                rc.response().setStatusCode(503).end("Warming up");
+            }
+        });
+        if (Metrics.registry() instanceof PrometheusMeterRegistry) {
+            Handler<io.vertx.ext.web.RoutingContext> scraping = PrometheusScrapingHandler.create();
+            router.get("/metrics").handler(rc -> scraping.handle(rc.getDelegate()));
+        }
         router.get("/*").handler(StaticHandler.create());
 
-        // Access to Cute name service.
-        client = WebClient.create(vertx, new WebClientOptions()
-            .setDefaultHost("cute-name-service")
-            .setDefaultPort(8080)
-        );
+        // Access to Cute name service, the client (with its connection pool, circuit breaker and in-flight limit)
+        // is shared by the verticle instances, and created by MainVerticle when deployed by it.
+        sharedClient = NameServiceClient.shared(vertx, config());
+        client = sharedClient.acquire();
 
-        Completable retrieveCache = Cache.<String, String>create(vertx)
-            .doOnSuccess(c -> this.cache = c)
-            .ignoreElement();
+        Completable retrieveCache = Cache.<String, String>create(vertx, config())
+            .flatMapCompletable(c -> {
+                if (stopped) {
+                    // Nothing else would release the client.
+                    return c.close().andThen(Completable.error(new IllegalStateException("Stopped while connecting")));
+                }
+                this.cache = c;
+                this.names = new NameCache(vertx, c, key -> client.name(), config());
+                return Completable.complete();
+            });
+
+        boolean fast = config().getBoolean("startup.fast", false);
+        WarmUp warmUp = WarmUp.create(vertx, config());
+        Completable prepare = (fast ? retrying(retrieveCache) : retrieveCache)
+            .andThen(Completable.defer(() -> names.reloadPolicy()))
+            .andThen(Completable.defer(() -> warmUp.preload(names)))
+            .doOnComplete(() -> readiness.ready());
 
         Completable startHttpServer = vertx
             .createHttpServer()
@@ -56,35 +115,119 @@ public class CacheVerticle extends AbstractVerticle {
             .ignoreElement()
             .doOnComplete(() -> LOGGER.info("HTTP Server started"));
 
-        retrieveCache.andThen(startHttpServer)
-            .subscribe(CompletableHelper.toObserver(future));
+        if (fast) {
+            // Listen right away, /health reports the instance ready once connected to the cache and warmed up.
+            prepare.subscribe(
+                () -> LOGGER.info("Ready"),
+                t -> LOGGER.info("Stopped before being ready: " + t.getMessage())
+            );
+            startHttpServer.subscribe(CompletableHelper.toObserver(future));
+        } else {
+            prepare.andThen(startHttpServer)
+                .subscribe(CompletableHelper.toObserver(future));
+        }
+    }
+
+    /**
+     * Retries the connection to the cache with an exponential backoff, until it succeeds or the verticle stops.
+     */
+    private Completable retrying(Completable connect) {
+        Scheduler scheduler = RxHelper.scheduler(vertx.getOrCreateContext());
+        AtomicInteger failures = new AtomicInteger();
+        return connect.retryWhen(errors -> errors.flatMap(t -> {
+            if (stopped) {
+                return Flowable.<Long>error(t);
+            }
+            long delay = Math.min(MAX_RETRY_DELAY, INITIAL_RETRY_DELAY << Math.min(failures.getAndIncrement(), 5));
+            LOGGER.error("Unable to connect to the cache, retrying in " + delay + " ms", t);
+            return Flowable.timer(delay, TimeUnit.MILLISECONDS, scheduler);
+        }));
+    }
+
+    @Override
+    public void stop(Future<Void> future) {
+        stopped = true;
+        if (names != null) {
+            WarmUp.collect(vertx, names.recentKeys());
+        }
+        if (sharedClient != null) {
+            sharedClient.release();
+        }
+        if (cache == null) {
+            future.complete();
+            return;
+        }
+        cache.close().subscribe(CompletableHelper.toObserver(future));
+    }
+
+    private GreetingKey key(RoutingContext rc) {
+        try {
+            return GreetingKey.from(rc);
+        } catch (IllegalArgumentException e) {
+            rc.response().setStatusCode(400).end(e.getMessage());
+            return null;
+        }
     }
 
     private void clearTheValue(RoutingContext rc) {
-        cache.remove(KEY)
+        GreetingKey key = key(rc);
+        if (key == null) {
+            return;
+        }
+        names.remove(key.cacheKey())
             .subscribe(
                 () -> rc.response().setStatusCode(204).end(),
                 rc::fail
             );
     }
 
+    private void getTTL(RoutingContext rc) {
+        rc.response()
+            .putHeader("content-type", "application/json")
+            .end(names.policy().encode());
+    }
+
     private void setTTL(RoutingContext rc) {
-        JsonObject body = rc.getBodyAsJson();
-        int newTTL = body.getInteger("ttl", -1);
-        if (newTTL > 0) {
-            rc.response().setStatusCode(400).end("Invalid payload, ttl expected");
-        } else {
-            ttl = newTTL;
-            rc.response()
-                .putHeader("content-type", "application/json")
-                .end(new JsonObject().put("ttl", ttl).encode());
+        JsonObject body;
+        try {
+            body = rc.getBodyAsJson();
+        } catch (DecodeException e) {
+            body = null;
         }
+        if (body == null) {
+            rc.response().setStatusCode(400).end("Invalid payload, TTL policy expected");
+            return;
+        }
+        names.updatePolicy(body)
+            .subscribe(
+                policy -> rc.response()
+                    .putHeader("content-type", "application/json")
+                    .end(policy.encode()),
+                t -> {
+                    if (t instanceof IllegalArgumentException) {
+                        rc.response().setStatusCode(400).end(t.getMessage());
+                    } else if (t instanceof ConcurrentModificationException) {
+                        rc.response().setStatusCode(409).end(t.getMessage());
+                    } else {
+                        rc.fail(t);
+                    }
+                }
+            );
     }
 
+    private void stats(RoutingContext rc) {
+        rc.response()
+            .putHeader("content-type", "application/json")
+            .end(new JsonObject().put("near-cache", cache.stats()).encode());
+    }
 
     private void isCached(RoutingContext rc) {
-        cache.get(KEY)
-            .map(Optional::isPresent)
+        GreetingKey key = key(rc);
+        if (key == null) {
+            return;
+        }
+        names.isCached(key.cacheKey())
+            .doOnSuccess(cached -> (cached ? cachedHits : cachedMisses).increment())
             .onErrorReturnItem(false)
             .map(cached -> new JsonObject().put("cached", cached))
             .map(JsonObject::encode)
@@ -97,18 +240,12 @@ public class CacheVerticle extends AbstractVerticle {
     }
 
     private void greeting(RoutingContext rc) {
-        cache.get(KEY)
-            .flatMap(maybe ->
-                maybe.map(Single::just)
-                    .orElse(
-                        client.get("/api/name")
-                            .rxSend()
-                            .map(HttpResponse::bodyAsJsonObject)
-                            .map(j -> j.getString("name"))
-                            .flatMap(n -> cache.put(KEY, n, ttl).toSingleDefault(n))
-                    )
-            )
-            .map(name -> new JsonObject().put("message", "Hello " + name))
+        GreetingKey key = key(rc);
+        if (key == null) {
+            return;
+        }
+        names.get(key.cacheKey())
+            .map(name -> new JsonObject().put("message", key.salutation() + " " + name))
             .onErrorReturn(t -> new JsonObject().put("message", "Unable to call the service: " + t.getMessage()))
             .map(JsonObject::encode)
             .subscribe(
@@ -0,0 +1,160 @@
+package io.openshift.vertx.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.infinispan.commons.dataconversion.MediaType;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.io.ByteBufferImpl;
+import org.infinispan.commons.marshall.AbstractMarshaller;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hot Rod marshaller with a compact binary format for the types used by the application: a one byte tag followed
+ * by the payload.
+ * <ul>
+ * <li>{@link String}: UTF-8 bytes, encoded straight into the output array</li>
+ * <li>{@link JsonObject}: the JSON document as UTF-8 bytes</li>
+ * <li>{@link Buffer} and {@code byte[]}: the raw bytes, unmarshalled buffers wrap the received array without
+ * copying it</li>
+ * </ul>
+ * Any other type is handed to a fallback marshaller (the JBoss one by default). Data without a known tag (written
+ * by a client using the fallback marshaller directly) is also read with the fallback marshaller.
+ * <p>
+ * Keys are marshalled too, and a string key is not encoded as with the fallback marshaller: switching marshaller
+ * makes the existing entries unreachable, all the clients of a cache have to switch together.
+ */
+public class CompactMarshaller extends AbstractMarshaller {
+
+    private static final byte FALLBACK = (byte) 0xC0;
+    private static final byte STRING = (byte) 0xC1;
+    private static final byte JSON = (byte) 0xC2;
+    private static final byte BYTES = (byte) 0xC3;
+    private static final byte BUFFER = (byte) 0xC4;
+
+    private final Marshaller fallback;
+
+    public CompactMarshaller() {
+        this(new GenericJBossMarshaller());
+    }
+
+    public CompactMarshaller(Marshaller fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    protected ByteBuffer objectToBuffer(Object o, int estimatedSize) throws IOException, InterruptedException {
+        byte[] bytes;
+        if (o instanceof String) {
+            bytes = encode(STRING, (String) o);
+        } else if (o instanceof JsonObject) {
+            bytes = encode(JSON, ((JsonObject) o).encode());
+        } else if (o instanceof byte[]) {
+            byte[] raw = (byte[]) o;
+            bytes = new byte[raw.length + 1];
+            bytes[0] = BYTES;
+            System.arraycopy(raw, 0, bytes, 1, raw.length);
+        } else if (o instanceof Buffer) {
+            ByteBuf buf = ((Buffer) o).getByteBuf();
+            bytes = new byte[buf.readableBytes() + 1];
+            bytes[0] = BUFFER;
+            buf.getBytes(buf.readerIndex(), bytes, 1, bytes.length - 1);
+        } else {
+            ByteBuffer delegate = fallback.objectToBuffer(o);
+            bytes = new byte[delegate.getLength() + 1];
+            bytes[0] = FALLBACK;
+            System.arraycopy(delegate.getBuf(), delegate.getOffset(), bytes, 1, delegate.getLength());
+        }
+        return new ByteBufferImpl(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public Object objectFromByteBuffer(byte[] buf, int offset, int length) throws IOException,
+        ClassNotFoundException {
+        if (length == 0) {
+            return fallback.objectFromByteBuffer(buf, offset, length);
+        }
+        switch (buf[offset]) {
+            case STRING:
+                return new String(buf, offset + 1, length - 1, StandardCharsets.UTF_8);
+            case JSON:
+                return new JsonObject(Buffer.buffer(Unpooled.wrappedBuffer(buf, offset + 1, length - 1)));
+            case BYTES:
+                byte[] bytes = new byte[length - 1];
+                System.arraycopy(buf, offset + 1, bytes, 0, bytes.length);
+                return bytes;
+            case BUFFER:
+                return Buffer.buffer(Unpooled.wrappedBuffer(buf, offset + 1, length - 1));
+            case FALLBACK:
+                return fallback.objectFromByteBuffer(buf, offset + 1, length - 1);
+            default:
+                return fallback.objectFromByteBuffer(buf, offset, length);
+        }
+    }
+
+    @Override
+    public boolean isMarshallable(Object o) throws Exception {
+        return o instanceof String || o instanceof JsonObject || o instanceof byte[] || o instanceof Buffer
+            || fallback.isMarshallable(o);
+    }
+
+    @Override
+    public MediaType mediaType() {
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * Encodes the tag and the UTF-8 representation of the string in a single array.
+     */
+    private static byte[] encode(byte tag, String s) {
+        int length = s.length();
+        int size = 1;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                size++;
+            } else {
+                size += 3;
+            }
+        }
+
+        byte[] bytes = new byte[size];
+        bytes[0] = tag;
+        int pos = 1;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                bytes[pos++] = (byte) (0xF0 | (cp >> 18));
+                bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced, as String.getBytes does.
+                bytes[pos++] = '?';
+            } else {
+                bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return bytes;
+    }
+}
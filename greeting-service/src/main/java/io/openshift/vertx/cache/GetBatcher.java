@@ -0,0 +1,87 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import io.vertx.reactivex.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Collects single-key reads and sends them as one bulk read, either when {@code size} distinct keys are pending
+ * or {@code window} milliseconds after the first pending read, whichever comes first. Results are fanned back out
+ * to every caller (callers reading the same key share the same result).
+ */
+class GetBatcher<K, V> {
+
+    private final Vertx vertx;
+    private final Function<Set<K>, Single<Map<K, V>>> bulk;
+    private final int size;
+    private final long window;
+
+    private Map<K, List<SingleEmitter<Optional<V>>>> pending = new LinkedHashMap<>();
+    private long timer = -1;
+
+    GetBatcher(Vertx vertx, Function<Set<K>, Single<Map<K, V>>> bulk, int size, long window) {
+        this.vertx = vertx;
+        this.bulk = bulk;
+        this.size = size;
+        this.window = window;
+    }
+
+    Single<Optional<V>> get(K key) {
+        return Single.create(emitter -> enqueue(key, emitter));
+    }
+
+    private void enqueue(K key, SingleEmitter<Optional<V>> emitter) {
+        Map<K, List<SingleEmitter<Optional<V>>>> batch = null;
+        synchronized (this) {
+            pending.computeIfAbsent(key, k -> new ArrayList<>()).add(emitter);
+            if (pending.size() >= size) {
+                batch = drain();
+            } else if (timer == -1) {
+                timer = vertx.setTimer(window, x -> flush());
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    private void flush() {
+        Map<K, List<SingleEmitter<Optional<V>>>> batch;
+        synchronized (this) {
+            timer = -1;
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private Map<K, List<SingleEmitter<Optional<V>>>> drain() {
+        if (timer != -1) {
+            vertx.cancelTimer(timer);
+            timer = -1;
+        }
+        Map<K, List<SingleEmitter<Optional<V>>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void send(Map<K, List<SingleEmitter<Optional<V>>>> batch) {
+        bulk.apply(batch.keySet())
+            .subscribe(
+                values -> batch.forEach((key, emitters) -> {
+                    Optional<V> value = Optional.ofNullable(values.get(key));
+                    emitters.forEach(e -> e.onSuccess(value));
+                }),
+                failure -> batch.values().forEach(emitters -> emitters.forEach(e -> e.onError(failure)))
+            );
+    }
+}
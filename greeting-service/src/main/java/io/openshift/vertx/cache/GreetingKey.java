@@ -0,0 +1,101 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The dimension a greeting is cached for: a tenant and a locale, both optional.
+ * <p>
+ * They are read from the {@code tenant} and {@code locale} query parameters, or else from the {@code X-Tenant}
+ * and {@code Accept-Language} (first language only) headers. Both are normalized to lower case and validated, so
+ * equivalent requests share the same entry and keys stay short: the cache key is {@code tenant/locale} (ASCII,
+ * 54 characters at most), or {@code NAME} when the request specifies neither.
+ */
+final class GreetingKey {
+
+    static final String DEFAULT = "NAME";
+
+    private static final Pattern TENANT = Pattern.compile("[a-z0-9_-]{1,32}");
+    private static final Pattern LOCALE = Pattern.compile("[a-z]{2,3}(-[a-z0-9]{2,8}){0,2}");
+
+    private final String locale;
+    private final String key;
+
+    private GreetingKey(String tenant, String locale) {
+        this.locale = locale;
+        if (tenant == null && locale == null) {
+            this.key = DEFAULT;
+        } else {
+            this.key = (tenant == null ? "" : tenant) + "/" + (locale == null ? "" : locale);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the tenant or the locale is invalid
+     */
+    static GreetingKey from(RoutingContext rc) {
+        String tenant = rc.request().getParam("tenant");
+        if (tenant == null) {
+            tenant = rc.request().getHeader("X-Tenant");
+        }
+        String locale = rc.request().getParam("locale");
+        if (locale == null) {
+            locale = language(rc.request().getHeader("Accept-Language"));
+        }
+        return new GreetingKey(
+            validate(tenant == null ? null : tenant.toLowerCase(Locale.ROOT), TENANT, "tenant"),
+            validate(locale == null ? null : locale.toLowerCase(Locale.ROOT).replace('_', '-'), LOCALE, "locale"));
+    }
+
+    private static String language(String header) {
+        if (header == null) {
+            return null;
+        }
+        int end = header.indexOf(',');
+        String first = end == -1 ? header : header.substring(0, end);
+        int parameters = first.indexOf(';');
+        first = (parameters == -1 ? first : first.substring(0, parameters)).trim()
+            .toLowerCase(Locale.ROOT).replace('_', '-');
+        // Unlike an explicit locale parameter, an unsupported header value is ignored.
+        return LOCALE.matcher(first).matches() ? first : null;
+    }
+
+    private static String validate(String value, Pattern pattern, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (!pattern.matcher(value).matches()) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+        return value;
+    }
+
+    String cacheKey() {
+        return key;
+    }
+
+    /**
+     * @return the greeting word for the locale, English by default
+     */
+    String salutation() {
+        if (locale == null) {
+            return "Hello";
+        }
+        switch (locale.substring(0, Math.min(2, locale.length()))) {
+            case "fr":
+                return "Bonjour";
+            case "es":
+                return "Hola";
+            case "de":
+                return "Hallo";
+            case "it":
+                return "Ciao";
+            case "pt":
+                return "Olá";
+            default:
+                return "Hello";
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.Launcher;
+import io.vertx.core.VertxOptions;
+import io.vertx.micrometer.MicrometerMetricsOptions;
+import io.vertx.micrometer.VertxPrometheusOptions;
+
+/**
+ * Launcher enabling the Vert.x Micrometer metrics, with a Prometheus backend (scraped on {@code /metrics}).
+ */
+public class GreetingLauncher extends Launcher {
+
+    public static void main(String[] args) {
+        new GreetingLauncher().dispatch(args);
+    }
+
+    @Override
+    public void beforeStartingVertx(VertxOptions options) {
+        options.setMetricsOptions(new MicrometerMetricsOptions()
+            .setPrometheusOptions(new VertxPrometheusOptions().setEnabled(true))
+            .setJvmMetricsEnabled(true)
+            .setEnabled(true));
+    }
+}
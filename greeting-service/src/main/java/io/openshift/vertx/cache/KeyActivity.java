@@ -0,0 +1,103 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Activity of the recently loaded keys, used to adapt their TTL (see
+ * {@link TtlPolicy#adapt(int, int, boolean, long)}): the TTL of the previous load, the hits since then and whether
+ * the key was removed in between. Hits are only recorded when the policy is adaptive.
+ * <p>
+ * Shared by the {@link NameCache} instances of a Vert.x instance. Bounded in number of keys, least recently loaded
+ * (or removed) keys are forgotten first and start again from their base TTL.
+ * <p>
+ * Hits do not take the lock: they are counted in a {@link LongAdder} per key, looked up in a concurrent index, so the
+ * event loops serving the hits do not contend. The counts are summed and reset by the next load.
+ */
+final class KeyActivity implements Shareable {
+
+    private final Map<String, Activity> keys;
+    // The entries of keys, for the hits.
+    private final Map<String, Activity> tracked = new ConcurrentHashMap<>();
+
+    KeyActivity(int maxKeys) {
+        this.keys = new LinkedHashMap<String, Activity>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Activity> eldest) {
+                if (size() > maxKeys) {
+                    tracked.remove(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    void hit(String key) {
+        Activity activity = tracked.get(key);
+        if (activity != null) {
+            activity.hits.increment();
+        }
+    }
+
+    void invalidated(String key) {
+        synchronized (keys) {
+            Activity activity = keys.get(key);
+            if (activity != null) {
+                activity.invalidated = true;
+            }
+        }
+    }
+
+    /**
+     * Records a load of the given key and computes the TTL to store it with.
+     *
+     * @param latency the duration of the load, in milliseconds
+     */
+    int loaded(String key, TtlPolicy policy, long latency) {
+        synchronized (keys) {
+            Activity activity = keys.get(key);
+            if (activity == null) {
+                activity = new Activity();
+                keys.put(key, activity);
+                tracked.put(key, activity);
+            }
+            long hits = activity.hits.sumThenReset();
+            if (activity.ttl == 0 || !policy.isAdaptive()) {
+                activity.ttl = policy.base(key);
+            } else {
+                activity.ttl = policy.adapt(activity.ttl, (int) Math.min(hits, Integer.MAX_VALUE),
+                    activity.invalidated, latency);
+            }
+            activity.invalidated = false;
+            return activity.ttl;
+        }
+    }
+
+    /**
+     * Restarts the adaptation of all the keys from their base TTL, e.g. when the policy changes.
+     */
+    void reset() {
+        synchronized (keys) {
+            for (Activity activity : keys.values()) {
+                activity.ttl = 0;
+            }
+        }
+    }
+
+    int size() {
+        synchronized (keys) {
+            return keys.size();
+        }
+    }
+
+    private static final class Activity {
+        private int ttl;
+        private final LongAdder hits = new LongAdder();
+        private boolean invalidated;
+    }
+}
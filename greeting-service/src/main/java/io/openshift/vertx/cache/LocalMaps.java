@@ -0,0 +1,24 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.shareddata.LocalMap;
+
+/**
+ * Objects shared by the verticle instances of a Vert.x instance, stored in its local maps.
+ */
+final class LocalMaps {
+
+    private LocalMaps() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * @return the object stored under the given key, or else the candidate, stored by this call
+     */
+    static <T extends Shareable> T putIfAbsent(Vertx vertx, String map, String key, T candidate) {
+        LocalMap<String, T> objects = vertx.sharedData().getLocalMap(map);
+        T existing = objects.putIfAbsent(key, candidate);
+        return existing != null ? existing : candidate;
+    }
+}
@@ -0,0 +1,40 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.reactivex.CompletableHelper;
+import io.vertx.reactivex.core.AbstractVerticle;
+
+/**
+ * Deploys {@code http.instances} instances of {@link CacheVerticle} (one per core by default), so the HTTP
+ * traffic is served by several event loops. The service is ready once all of them are (see {@link Readiness}). On
+ * shutdown, saves the hot keys for the next warm-up (see {@link WarmUp}).
+ * <p>
+ * The name service client shared by the instances is created here, so it is not closed with the first instance
+ * undeployed (see {@link NameServiceClient#shared}).
+ */
+public class MainVerticle extends AbstractVerticle {
+
+    private SharedResource<NameServiceClient> client;
+
+    @Override
+    public void start(Future<Void> future) {
+        int instances = config().getInteger("http.instances", Runtime.getRuntime().availableProcessors());
+        Readiness.get(vertx).expect(instances);
+        client = NameServiceClient.shared(vertx, config());
+        client.acquire();
+        vertx.rxDeployVerticle(CacheVerticle.class.getName(), new DeploymentOptions()
+            .setConfig(config())
+            .setInstances(instances))
+            .ignoreElement()
+            .subscribe(CompletableHelper.toObserver(future));
+    }
+
+    @Override
+    public void stop(Future<Void> future) {
+        // The CacheVerticle instances are undeployed first, the hot keys are final and the client is no longer used.
+        client.release();
+        WarmUp.create(vertx, config()).save()
+            .subscribe(CompletableHelper.toObserver(future));
+    }
+}
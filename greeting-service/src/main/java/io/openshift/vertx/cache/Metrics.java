@@ -0,0 +1,59 @@
+package io.openshift.vertx.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import io.vertx.micrometer.backends.BackendRegistries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application meters. They are registered in the Vert.x Micrometer registry, or in a registry without backend
+ * (recording nothing) when the Vert.x metrics are disabled.
+ * <p>
+ * Meters are meant to be looked up once and kept in fields: recording a duration or incrementing a counter does
+ * not allocate besides the Rx callbacks.
+ */
+final class Metrics {
+
+    private static final MeterRegistry NOOP = new CompositeMeterRegistry();
+
+    private Metrics() {
+        // Avoid direct instantiation.
+    }
+
+    static MeterRegistry registry() {
+        MeterRegistry registry = BackendRegistries.getDefaultNow();
+        return registry != null ? registry : NOOP;
+    }
+
+    static Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+            .tags(tags)
+            .publishPercentileHistogram()
+            .register(registry());
+    }
+
+    static Counter counter(String name, String... tags) {
+        return Counter.builder(name)
+            .tags(tags)
+            .register(registry());
+    }
+
+    static <T> Single<T> time(Single<T> single, Timer timer) {
+        return Single.defer(() -> {
+            long start = System.nanoTime();
+            return single.doFinally(() -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    static Completable time(Completable completable, Timer timer) {
+        return Completable.defer(() -> {
+            long start = System.nanoTime();
+            return completable.doFinally(() -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+}
@@ -0,0 +1,256 @@
+package io.openshift.vertx.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.reactivex.core.RxHelper;
+import io.vertx.reactivex.core.Vertx;
+
+import java.util.ConcurrentModificationException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of names.
+ * <p>
+ * On a miss, the name is loaded (once per key, concurrent requests share the same load) and stored with the TTL
+ * given by the {@link TtlPolicy}. When {@code cache.refresh-ahead} is enabled, entries live {@code cache.stale-ttl}
+ * more seconds (defaults to {@code cache.ttl}) in the remote cache: a request reading a stale entry gets it
+ * immediately, and a single background refresh is started.
+ * <p>
+ * With {@code cache.fallback-ttl} (in seconds, default {@code 0}: disabled), entries also outlive their TTL by that
+ * long in the remote cache, without being served: past their TTL they are misses. When the load of such a key
+ * fails, the expired name is returned instead of the failure. Whichever instance or pod stored it, a name is thus
+ * available as a fallback for as long as it was recently cached. As every entry is kept that much longer, the
+ * remote cache needs room for the keys requested during the TTL plus {@code cache.fallback-ttl}.
+ * <p>
+ * The policy starts from the configuration and is changed with {@link #updatePolicy(JsonObject)}. Changes are
+ * stored in the remote cache ({@value #POLICY_KEY}, not a valid greeting key) with a version number, and written
+ * with a conditional replace, so concurrent changes from any instance or pod are applied one after the other and
+ * none is lost. Instances reload the stored policy when notified on the event bus ({@value #POLICY_ADDRESS}), and
+ * every {@code cache.ttl-policy.reload} seconds (default 10, {@code 0} disables it) to catch up with the other pods.
+ * <p>
+ * Only the hot keys are kept in memory (in the bounded near cache of {@link Cache}): the number of distinct keys
+ * does not change the memory usage.
+ */
+public class NameCache {
+
+    static final String POLICY_ADDRESS = "name-cache.ttl-policy";
+    static final String POLICY_KEY = "@ttl-policy";
+
+    // Attempts of a policy update, each conflicting with a concurrent one.
+    private static final int POLICY_UPDATE_ATTEMPTS = 16;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("Name-Cache");
+
+    private final Vertx vertx;
+    private final Cache<String, String> cache;
+    private final Function<String, Single<String>> loader;
+    private final SingleFlight<String, String> loads;
+    private final KeyActivity activity;
+    private final RecentKeys recent;
+    private final Scheduler scheduler;
+    private final boolean refreshAhead;
+    private final int staleTtl;
+    private final int fallbackTtl;
+    private final TtlPolicy configured;
+    private volatile TtlPolicy policy;
+    // Version of the stored policy in use, 0 while using the configured one. Guarded by this.
+    private long policyVersion;
+    private final Counter hits = Metrics.counter("greeting.cache.requests", "handler", "greeting", "result", "hit");
+    private final Counter misses = Metrics.counter("greeting.cache.requests", "handler", "greeting", "result", "miss");
+    private final Counter fallbacks = Metrics.counter("greeting.backend.fallbacks", "service", "cute-name-service");
+
+    public NameCache(Vertx vertx, Cache<String, String> cache, Function<String, Single<String>> loader,
+                     JsonObject config) {
+        this.vertx = vertx;
+        this.cache = cache;
+        this.loader = loader;
+        // Loads and key activity are shared by the instances deployed on the other event loops. Loads started by
+        // another instance complete on its context, hence the scheduler to get back on ours.
+        this.loads = LocalMaps.putIfAbsent(vertx, "name-cache.loads", "name-cache.loads", new SingleFlight<>());
+        this.activity = LocalMaps.putIfAbsent(vertx, "name-cache.activity", "name-cache.activity",
+            new KeyActivity(config.getInteger("cache.adaptive-ttl.max-keys", 10_000)));
+        // Not shared: recording a request must not contend with the other event loops.
+        this.recent = new RecentKeys(config.getInteger("warmup.max-keys", 100));
+        this.scheduler = RxHelper.scheduler(vertx.getOrCreateContext());
+        this.configured = TtlPolicy.create(config);
+        this.policy = configured;
+        this.refreshAhead = config.getBoolean("cache.refresh-ahead", false);
+        this.staleTtl = config.getInteger("cache.stale-ttl", policy.ttl());
+        this.fallbackTtl = config.getInteger("cache.fallback-ttl", 0);
+        vertx.eventBus().<Long>consumer(POLICY_ADDRESS, message -> {
+            if (message.body() > currentPolicyVersion()) {
+                reloadPolicy().subscribe();
+            }
+        });
+        long reload = config.getLong("cache.ttl-policy.reload", 10L);
+        if (reload > 0) {
+            vertx.setPeriodic(TimeUnit.SECONDS.toMillis(reload), x -> reloadPolicy().subscribe());
+        }
+    }
+
+    public Single<String> get(String key) {
+        recent.touch(key, System.currentTimeMillis());
+        return lookup(key)
+            .flatMap(maybe -> {
+                long now = System.currentTimeMillis();
+                if (!maybe.isPresent() || !isServable(maybe.get(), now)) {
+                    misses.increment();
+                    return loads.execute(key, () -> load(key)).observeOn(scheduler);
+                }
+                hits.increment();
+                if (policy.isAdaptive()) {
+                    activity.hit(key);
+                }
+                TimedValue value = maybe.get();
+                if (refreshAhead && value.isStale(now)) {
+                    vertx.runOnContext(x -> refresh(key));
+                }
+                return Single.just(value.value());
+            });
+    }
+
+    /**
+     * @return the keys recently requested from this name cache
+     */
+    RecentKeys recentKeys() {
+        return recent;
+    }
+
+    /**
+     * @return whether a name is cached and can be served, i.e. not expired (entries kept as fallback are not)
+     */
+    public Single<Boolean> isCached(String key) {
+        return lookup(key).map(maybe -> maybe.isPresent() && isServable(maybe.get(), System.currentTimeMillis()));
+    }
+
+    private boolean isServable(TimedValue value, long now) {
+        return !value.isStale(now) || (refreshAhead && !value.isStale(now - staleTtl * 1000L));
+    }
+
+    public Completable remove(String key) {
+        activity.invalidated(key);
+        return cache.remove(key);
+    }
+
+    /**
+     * @return the current TTL policy, see {@link TtlPolicy} for the format
+     */
+    public JsonObject policy() {
+        return policy.encode();
+    }
+
+    /**
+     * Changes the TTL policy of all the instances. Only the fields present in {@code update} change, the other ones
+     * are kept from the stored policy (or the configured one if none was stored yet). The new policy applies to
+     * the names stored from now on.
+     *
+     * @return the new policy. Fails with an {@link IllegalArgumentException} if the update is invalid, or a
+     * {@link ConcurrentModificationException} if it kept conflicting with concurrent updates.
+     */
+    public Single<JsonObject> updatePolicy(JsonObject update) {
+        return Single.defer(() -> cache.getVersioned(POLICY_KEY)
+            .flatMap(stored -> {
+                long version = 0;
+                TtlPolicy current = configured;
+                if (stored.isPresent()) {
+                    JsonObject envelope = new JsonObject(stored.get().getValue());
+                    version = envelope.getLong("version");
+                    current = TtlPolicy.decode(envelope.getJsonObject("policy"));
+                }
+                long next = version + 1;
+                TtlPolicy merged = current.merge(update);
+                String encoded = new JsonObject().put("version", next).put("policy", merged.encode()).encode();
+                Single<Boolean> write = stored.isPresent()
+                    ? cache.replace(POLICY_KEY, encoded, stored.get().getVersion())
+                    : cache.putIfAbsent(POLICY_KEY, encoded);
+                return write.map(written -> {
+                    if (!written) {
+                        throw new ConcurrentModificationException("TTL policy updated concurrently");
+                    }
+                    apply(next, merged);
+                    vertx.eventBus().publish(POLICY_ADDRESS, next);
+                    return merged.encode();
+                });
+            }))
+            .retry((attempts, t) ->
+                attempts < POLICY_UPDATE_ATTEMPTS && t instanceof ConcurrentModificationException);
+    }
+
+    /**
+     * Reads the policy stored in the remote cache and uses it if newer than the current one. Failures are logged,
+     * the current policy is kept.
+     */
+    public Completable reloadPolicy() {
+        return cache.getVersioned(POLICY_KEY)
+            .doOnSuccess(stored -> stored.ifPresent(value -> {
+                JsonObject envelope = new JsonObject(value.getValue());
+                apply(envelope.getLong("version"), TtlPolicy.decode(envelope.getJsonObject("policy")));
+            }))
+            .ignoreElement()
+            .doOnError(t -> LOGGER.warn("Unable to read the stored TTL policy", t))
+            .onErrorComplete();
+    }
+
+    private synchronized long currentPolicyVersion() {
+        return policyVersion;
+    }
+
+    private synchronized void apply(long version, TtlPolicy stored) {
+        if (version > policyVersion) {
+            policyVersion = version;
+            policy = stored;
+            // The adapted TTLs derive from the previous policy.
+            activity.reset();
+        }
+    }
+
+    private Single<Optional<TimedValue>> lookup(String key) {
+        return cache.get(key).map(maybe -> maybe.map(TimedValue::decode));
+    }
+
+    private void refresh(String key) {
+        loads.execute(key, () -> load(key))
+            .subscribe(
+                name -> LOGGER.debug("Refreshed " + key),
+                t -> LOGGER.warn("Unable to refresh " + key, t)
+            );
+    }
+
+    private Single<String> load(String key) {
+        // Check the cache again: a request that missed just before the previous load completed must not trigger
+        // another call to the loader.
+        return lookup(key)
+            .flatMap(maybe -> {
+                if (maybe.isPresent() && !maybe.get().isStale(System.currentTimeMillis())) {
+                    return Single.just(maybe.get().value());
+                }
+                long start = System.nanoTime();
+                return loader.apply(key)
+                    .flatMap(name -> store(key, name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                        .toSingleDefault(name))
+                    .onErrorResumeNext(t -> {
+                        if (!maybe.isPresent()) {
+                            return Single.error(t);
+                        }
+                        LOGGER.warn("Unable to load " + key + ", serving the expired name: " + t.getMessage());
+                        fallbacks.increment();
+                        return Single.just(maybe.get().value());
+                    });
+            });
+    }
+
+    private Completable store(String key, String name, long latency) {
+        TtlPolicy current = policy;
+        int ttl = activity.loaded(key, current, latency);
+        long now = System.currentTimeMillis();
+        TimedValue value = new TimedValue(name, now + ttl * 1000L);
+        return cache.put(key, value.encode(), (refreshAhead ? ttl + staleTtl : ttl) + fallbackTtl);
+    }
+}
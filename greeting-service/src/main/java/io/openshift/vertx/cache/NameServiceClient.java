@@ -0,0 +1,107 @@
+package io.openshift.vertx.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.Single;
+import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.circuitbreaker.CircuitBreakerState;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.reactivex.circuitbreaker.CircuitBreaker;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.web.client.WebClient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client of the cute name service, shared by the {@link CacheVerticle} instances, see {@link #shared}.
+ * <p>
+ * Each call is bounded in time ({@code name-service.timeout}) and goes through a circuit breaker: after
+ * {@code name-service.circuit.max-failures} consecutive failures, calls fail immediately for
+ * {@code name-service.circuit.reset-timeout} milliseconds. At most {@code name-service.max-in-flight} calls run
+ * concurrently, the others are rejected right away instead of queueing behind a slow service.
+ * <p>
+ * Failed calls can fall back to the expired names kept in the cache, see {@link NameCache}.
+ */
+final class NameServiceClient {
+
+    private final WebClient client;
+    private final CircuitBreaker breaker;
+    private final long timeout;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Timer timer = Metrics.timer("greeting.backend", "service", "cute-name-service");
+    private final Counter rejected = Metrics.counter("greeting.backend.rejected", "service", "cute-name-service");
+
+    private NameServiceClient(WebClient client, CircuitBreaker breaker, long timeout, int maxInFlight) {
+        this.client = client;
+        this.breaker = breaker;
+        this.timeout = timeout;
+        this.maxInFlight = maxInFlight;
+        Gauge.builder("greeting.backend.in-flight", inFlight, AtomicInteger::get)
+            .tag("service", "cute-name-service")
+            .register(Metrics.registry());
+        Gauge.builder("greeting.backend.circuit.open", breaker, b -> b.state() == CircuitBreakerState.OPEN ? 1 : 0)
+            .tag("service", "cute-name-service")
+            .register(Metrics.registry());
+    }
+
+    /**
+     * The client shared by the verticle instances. Vert.x closes an HTTP client when the verticle whose context
+     * created it is undeployed: the first {@link SharedResource#acquire()} has to be made by the verticle living the
+     * longest, {@link MainVerticle} when it deploys the instances.
+     */
+    static SharedResource<NameServiceClient> shared(Vertx vertx, JsonObject config) {
+        return SharedResource.lookup(vertx, "cute-name-service-client", () -> create(vertx, config),
+            NameServiceClient::close);
+    }
+
+    static NameServiceClient create(Vertx vertx, JsonObject config) {
+        WebClient client = WebClient.create(vertx, new WebClientOptions()
+            .setDefaultHost(config.getString("name-service.host", "cute-name-service"))
+            .setDefaultPort(config.getInteger("name-service.port", 8080))
+        );
+        CircuitBreaker breaker = CircuitBreaker.create("cute-name-service", vertx, new CircuitBreakerOptions()
+            .setMaxFailures(config.getInteger("name-service.circuit.max-failures", 5))
+            .setResetTimeout(config.getLong("name-service.circuit.reset-timeout", 10_000L))
+            // The request itself times out: a breaker timeout would report a failure while the call is still
+            // in flight.
+            .setTimeout(-1)
+            .setNotificationAddress(null));
+        return new NameServiceClient(client, breaker,
+            config.getLong("name-service.timeout", 3_000L),
+            config.getInteger("name-service.max-in-flight", 100));
+    }
+
+    /**
+     * Calls the service.
+     */
+    Single<String> name() {
+        return Single.defer(() -> {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                rejected.increment();
+                return Single.error(new IllegalStateException("Too many concurrent calls"));
+            }
+            return breaker.<String>rxExecute(promise -> call().subscribe(promise::complete, promise::fail))
+                .doFinally(inFlight::decrementAndGet);
+        });
+    }
+
+    private Single<String> call() {
+        return Metrics.time(client.get("/api/name").timeout(timeout).rxSend(), timer)
+            .map(response -> {
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("Unexpected status " + response.statusCode());
+                }
+                return response.bodyAsJsonObject().getString("name");
+            });
+    }
+
+    void close() {
+        breaker.close();
+        client.close();
+    }
+}
@@ -0,0 +1,219 @@
+package io.openshift.vertx.cache;
+
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryExpired;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientCacheFailover;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryExpiredEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryModifiedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryRemovedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheFailoverEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process (L1) tier in front of the remote cache, one per {@link Cache} instance (see {@link NearCacheGroup}).
+ * Reads come from the event loop of that instance, the lock is only contended by invalidations.
+ * <p>
+ * Entries are bounded in number (least recently used entries are evicted first) and in time. The tier is kept
+ * coherent with the remote cache by an {@link Invalidator} registered as Hot Rod client listener: any remote
+ * creation, modification, removal or expiration drops the local copy.
+ * <p>
+ * To avoid re-populating an entry with a value read before a concurrent invalidation, readers grab a
+ * {@link #token()} before going to the remote cache and hand it back to {@link #put(Object, Object, long)}. The
+ * value is only stored if the same key was not invalidated in between: each invalidation leaves a stamp (a
+ * tombstone) for its key, so invalidating a key does not reject the values read concurrently for other keys.
+ * Tombstones are bounded like the entries, the stamps of forgotten tombstones are summarized by a floor below
+ * which tokens are rejected.
+ */
+public class NearCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttl;
+    private final Map<K, Entry<V>> entries;
+    private final Map<K, Long> tombstones;
+    private final AtomicLong clock = new AtomicLong();
+    // Highest stamp of the forgotten tombstones, guarded by entries.
+    private long floor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries the maximum number of entries, {@code 0} disables the near cache
+     * @param ttl        the time to live of the local entries, in seconds
+     */
+    NearCache(int maxEntries, long ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = TimeUnit.SECONDS.toNanos(ttl);
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > NearCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.tombstones = new LinkedHashMap<K, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                if (size() > NearCache.this.maxEntries) {
+                    floor = Math.max(floor, eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0 && ttl > 0;
+    }
+
+    /**
+     * @return the cached value, {@code null} if not cached locally or expired
+     */
+    V get(K key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiration - System.nanoTime() > 0) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    long token() {
+        return clock.get();
+    }
+
+    /**
+     * Stores a value read from the remote cache, unless the key was invalidated since {@code token} was taken.
+     */
+    void put(K key, V value, long token) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            Long stamp = tombstones.get(key);
+            if (token >= floor && (stamp == null || stamp <= token)) {
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttl));
+            }
+        }
+    }
+
+    void invalidate(K key) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            // Re-inserted so the most recent tombstones are the last ones forgotten.
+            tombstones.remove(key);
+            tombstones.put(key, clock.incrementAndGet());
+            if (entries.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            floor = clock.incrementAndGet();
+            invalidations.add(entries.size());
+            entries.clear();
+            tombstones.clear();
+        }
+    }
+
+    long size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long invalidations() {
+        return invalidations.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiration;
+
+        private Entry(V value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+
+    /**
+     * Hot Rod client listener invalidating the near caches of a group on remote changes.
+     * Events are delivered on the Hot Rod client threads.
+     */
+    @ClientListener
+    public static final class Invalidator<K> {
+
+        private final NearCacheGroup<K, ?> near;
+
+        Invalidator(NearCacheGroup<K, ?> near) {
+            this.near = near;
+        }
+
+        @ClientCacheEntryCreated
+        public void created(ClientCacheEntryCreatedEvent<K> event) {
+            near.invalidate(event.getKey());
+        }
+
+        @ClientCacheEntryModified
+        public void modified(ClientCacheEntryModifiedEvent<K> event) {
+            near.invalidate(event.getKey());
+        }
+
+        @ClientCacheEntryRemoved
+        public void removed(ClientCacheEntryRemovedEvent<K> event) {
+            near.invalidate(event.getKey());
+        }
+
+        @ClientCacheEntryExpired
+        public void expired(ClientCacheEntryExpiredEvent<K> event) {
+            near.invalidate(event.getKey());
+        }
+
+        @ClientCacheFailover
+        public void failover(ClientCacheFailoverEvent event) {
+            // Events may have been lost while switching server, nothing local can be trusted.
+            near.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.openshift.vertx.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+
+/**
+ * The near caches of the {@link Cache} instances sharing a Hot Rod client.
+ * <p>
+ * Each instance reads from its own {@link NearCache}, so the verticles deployed on different event loops do not
+ * contend on the same lock. Invalidations (local writes and remote events) are fanned out to all of them; they are
+ * much less frequent than reads. Metrics and statistics are the sums over the group.
+ */
+final class NearCacheGroup<K, V> {
+
+    private final int maxEntries;
+    private final int ttl;
+    private final List<NearCache<K, V>> members = new CopyOnWriteArrayList<>();
+
+    private NearCacheGroup(int maxEntries, int ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Creates a group of near caches configured with {@code cache.near.max-entries} (per near cache, default 1000)
+     * and {@code cache.near.ttl} (in seconds, default 1).
+     */
+    static <K, V> NearCacheGroup<K, V> create(JsonObject json) {
+        return new NearCacheGroup<>(
+            json.getInteger("cache.near.max-entries", 1000),
+            json.getInteger("cache.near.ttl", 1));
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0 && ttl > 0;
+    }
+
+    /**
+     * Creates a near cache and adds it to the group. Call {@link #remove(NearCache)} once it is no longer used.
+     */
+    NearCache<K, V> add() {
+        NearCache<K, V> near = new NearCache<>(maxEntries, ttl);
+        if (isEnabled()) {
+            members.add(near);
+        }
+        return near;
+    }
+
+    void remove(NearCache<K, V> near) {
+        members.remove(near);
+    }
+
+    void invalidate(K key) {
+        for (NearCache<K, V> near : members) {
+            near.invalidate(key);
+        }
+    }
+
+    void clear() {
+        for (NearCache<K, V> near : members) {
+            near.clear();
+        }
+    }
+
+    /**
+     * Exposes the counters and the size, summed over the group, as meters of the given registry.
+     */
+    void bind(MeterRegistry registry) {
+        FunctionCounter.builder("cache.near.hits", this, g -> g.sum(NearCache::hits)).register(registry);
+        FunctionCounter.builder("cache.near.misses", this, g -> g.sum(NearCache::misses)).register(registry);
+        FunctionCounter.builder("cache.near.invalidations", this, g -> g.sum(NearCache::invalidations))
+            .register(registry);
+        FunctionCounter.builder("cache.near.evictions", this, g -> g.sum(NearCache::evictions)).register(registry);
+        Gauge.builder("cache.near.size", this, g -> g.sum(NearCache::size)).register(registry);
+    }
+
+    private long sum(ToLongFunction<NearCache<K, V>> counter) {
+        long sum = 0;
+        for (NearCache<K, V> near : members) {
+            sum += counter.applyAsLong(near);
+        }
+        return sum;
+    }
+
+    JsonObject stats() {
+        return new JsonObject()
+            .put("enabled", isEnabled())
+            .put("instances", members.size())
+            .put("size", sum(NearCache::size))
+            .put("max-entries", maxEntries)
+            .put("hits", sum(NearCache::hits))
+            .put("misses", sum(NearCache::misses))
+            .put("invalidations", sum(NearCache::invalidations))
+            .put("evictions", sum(NearCache::evictions));
+    }
+}
@@ -0,0 +1,43 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.reactivex.core.Vertx;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Readiness of the greeting service, shared by the verticle instances of a Vert.x instance: ready once all the
+ * expected {@link CacheVerticle} instances are connected to the cache and warmed up. The load balancer sees the
+ * same answer whichever event loop serves {@code /health}.
+ * <p>
+ * {@link MainVerticle} sets the number of instances it deploys, a single instance is expected otherwise.
+ */
+final class Readiness implements Shareable {
+
+    private final AtomicInteger expected = new AtomicInteger(1);
+    private final AtomicInteger ready = new AtomicInteger();
+
+    static Readiness get(Vertx vertx) {
+        return LocalMaps.putIfAbsent(vertx, "readiness", "readiness", new Readiness());
+    }
+
+    /**
+     * Sets the number of instances to wait for, before deploying them. The instances reported ready so far are
+     * forgotten: they belong to a previous deployment, undeployed since.
+     */
+    void expect(int instances) {
+        ready.set(0);
+        expected.set(instances);
+    }
+
+    /**
+     * Reports one more instance ready.
+     */
+    void ready() {
+        ready.incrementAndGet();
+    }
+
+    boolean isReady() {
+        return ready.get() >= expected.get();
+    }
+}
@@ -0,0 +1,63 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recently requested keys, with the time (epoch milliseconds) of their last request. Bounded in number, the least
+ * recently requested keys are forgotten first.
+ * <p>
+ * Each {@link NameCache} records its requests in its own instance, so the lock is only taken by its event loop.
+ * The instances are merged into a shared one when the verticles stop, see {@link WarmUp}.
+ */
+final class RecentKeys implements Shareable {
+
+    private final Map<String, Long> keys;
+
+    RecentKeys(int maxKeys) {
+        this.keys = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    synchronized void touch(String key, long now) {
+        keys.put(key, now);
+    }
+
+    /**
+     * Adds the keys of another instance, keeping the most recent time of each key.
+     */
+    void merge(RecentKeys other) {
+        Map<String, Long> copy;
+        synchronized (other) {
+            copy = new HashMap<>(other.keys);
+        }
+        synchronized (this) {
+            copy.forEach((key, time) -> keys.merge(key, time, Math::max));
+        }
+    }
+
+    /**
+     * @return the most recently requested keys, most recent first
+     */
+    List<String> hottest(int max) {
+        List<Map.Entry<String, Long>> entries;
+        synchronized (this) {
+            entries = new ArrayList<>(keys.entrySet());
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        List<String> hottest = new ArrayList<>(Math.min(max, entries.size()));
+        for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(max, entries.size()))) {
+            hottest.add(entry.getKey());
+        }
+        return hottest;
+    }
+}
@@ -0,0 +1,56 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.json.JsonObject;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+
+/**
+ * The Hot Rod client (manager, remote cache and group of near caches) shared by the {@link Cache} instances created
+ * with the same configuration.
+ */
+final class RemoteClient<K, V> {
+
+    private final RemoteCacheManager rcm;
+    private final RemoteCache<K, V> cache;
+    private final NearCacheGroup<K, V> near;
+
+    private RemoteClient(RemoteCacheManager rcm, RemoteCache<K, V> cache, NearCacheGroup<K, V> near) {
+        this.rcm = rcm;
+        this.cache = cache;
+        this.near = near;
+    }
+
+    /**
+     * Starts the client. This method connects to the servers and so blocks.
+     */
+    static <K, V> RemoteClient<K, V> start(JsonObject json) {
+        NearCacheGroup<K, V> near = NearCacheGroup.create(json);
+        RemoteCacheManager rcm = new RemoteCacheManager(Cache.configuration(json).build());
+        try {
+            RemoteCache<K, V> cache = rcm.getCache();
+            if (near.isEnabled()) {
+                cache.addClientListener(new NearCache.Invalidator<>(near));
+            }
+            near.bind(Metrics.registry());
+            return new RemoteClient<>(rcm, cache, near);
+        } catch (RuntimeException e) {
+            rcm.stop();
+            throw e;
+        }
+    }
+
+    RemoteCache<K, V> cache() {
+        return cache;
+    }
+
+    NearCacheGroup<K, V> near() {
+        return near;
+    }
+
+    /**
+     * Stops the client, closing its connections. This method blocks.
+     */
+    void stop() {
+        rcm.stop();
+    }
+}
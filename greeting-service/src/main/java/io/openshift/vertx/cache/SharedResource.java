@@ -0,0 +1,50 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.reactivex.core.Vertx;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A resource shared by the verticle instances of a Vert.x instance (stored in a local map). The resource is
+ * created by the first {@link #acquire()} and closed when the last user calls {@link #release()}.
+ * <p>
+ * {@link #acquire()} and {@link #release()} run the factory and the closer while holding a lock: if they block,
+ * call them from a worker thread.
+ */
+final class SharedResource<T> implements Shareable {
+
+    private final Supplier<T> factory;
+    private final Consumer<T> closer;
+    private T resource;
+    private int references;
+
+    private SharedResource(Supplier<T> factory, Consumer<T> closer) {
+        this.factory = factory;
+        this.closer = closer;
+    }
+
+    static <T> SharedResource<T> lookup(Vertx vertx, String name, Supplier<T> factory, Consumer<T> closer) {
+        return LocalMaps.putIfAbsent(vertx, "shared-resources", name, new SharedResource<>(factory, closer));
+    }
+
+    synchronized T acquire() {
+        if (references == 0) {
+            resource = factory.get();
+        }
+        references++;
+        return resource;
+    }
+
+    synchronized void release() {
+        if (references == 0) {
+            return;
+        }
+        if (--references == 0) {
+            T closing = resource;
+            resource = null;
+            closer.accept(closing);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Single;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load is in flight, other callers subscribe to the same
+ * {@link Single} instead of starting their own. Once the load terminates (successfully or not), the next call
+ * starts a new one.
+ * <p>
+ * This class is thread-safe and can be shared through a Vert.x local map. The returned {@link Single} completes
+ * on the thread completing the load.
+ */
+public class SingleFlight<K, V> implements Shareable {
+
+    private final ConcurrentMap<K, Single<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Single<V> execute(K key, Supplier<Single<V>> loader) {
+        return Single.defer(() -> inFlight.computeIfAbsent(key, k -> load(k, loader)));
+    }
+
+    private Single<V> load(K key, Supplier<Single<V>> loader) {
+        AtomicReference<Single<V>> self = new AtomicReference<>();
+        self.set(Single.defer(loader::get)
+            .doFinally(() -> inFlight.remove(key, self.get()))
+            .cache());
+        return self.get();
+    }
+
+    /**
+     * @return the number of loads currently in flight.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
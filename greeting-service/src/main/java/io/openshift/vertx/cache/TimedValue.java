@@ -0,0 +1,46 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A cached value along with its soft-expiry timestamp (epoch milliseconds). Past the soft expiry, the value is
+ * stale: it can still be served, but should be refreshed.
+ * <p>
+ * The pair is stored in the remote cache as a small JSON document. Plain values written before the envelope was
+ * introduced are decoded as never stale.
+ */
+final class TimedValue {
+
+    private final String value;
+    private final long refreshAt;
+
+    TimedValue(String value, long refreshAt) {
+        this.value = value;
+        this.refreshAt = refreshAt;
+    }
+
+    String value() {
+        return value;
+    }
+
+    boolean isStale(long now) {
+        return now >= refreshAt;
+    }
+
+    String encode() {
+        return new JsonObject().put("value", value).put("refresh-at", refreshAt).encode();
+    }
+
+    static TimedValue decode(String encoded) {
+        if (encoded.startsWith("{")) {
+            try {
+                JsonObject json = new JsonObject(encoded);
+                return new TimedValue(json.getString("value"), json.getLong("refresh-at", Long.MAX_VALUE));
+            } catch (DecodeException e) {
+                // Not an envelope, use the raw value.
+            }
+        }
+        return new TimedValue(encoded, Long.MAX_VALUE);
+    }
+}
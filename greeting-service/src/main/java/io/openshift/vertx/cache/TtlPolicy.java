@@ -0,0 +1,160 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * How long names stay cached. Immutable: a change creates a new policy (see {@link #merge(JsonObject)}).
+ * <p>
+ * Every key gets a base TTL: its entry in the per-key overrides, or else the entry of its tenant (the part before
+ * {@code /}), or else the global TTL. When the policy is adaptive, the TTL of each key then moves between
+ * {@code min} and {@code max} seconds depending on its activity (see {@link KeyActivity}).
+ * <p>
+ * Encoded as JSON to be stored in the remote cache, where the instances reload it from (see {@link NameCache}), and
+ * exposed by {@code /api/ttl}:
+ * <pre>
+ * {"ttl": 5, "keys": {"acme": 60}, "adaptive": {"enabled": true, "min": 1, "max": 300, "hot-hits": 10,
+ *  "slow-backend": 0}}
+ * </pre>
+ */
+final class TtlPolicy {
+
+    private final int ttl;
+    private final JsonObject keys;
+    private final boolean adaptive;
+    private final int min;
+    private final int max;
+    private final int hotHits;
+    private final long slowBackend;
+
+    private TtlPolicy(int ttl, JsonObject keys, boolean adaptive, int min, int max, int hotHits, long slowBackend) {
+        this.ttl = ttl;
+        this.keys = keys;
+        this.adaptive = adaptive;
+        this.min = min;
+        this.max = max;
+        this.hotHits = hotHits;
+        this.slowBackend = slowBackend;
+    }
+
+    /**
+     * Creates the initial policy from {@code cache.ttl}, {@code cache.key-ttl} and {@code cache.adaptive-ttl.*}.
+     *
+     * @throws IllegalArgumentException if the configuration is invalid
+     */
+    static TtlPolicy create(JsonObject config) {
+        return new TtlPolicy(5, new JsonObject(), false, 1, 300, 10, 0).merge(new JsonObject()
+            .put("ttl", config.getInteger("cache.ttl", 5))
+            .put("keys", config.getJsonObject("cache.key-ttl", new JsonObject()))
+            .put("adaptive", new JsonObject()
+                .put("enabled", config.getBoolean("cache.adaptive-ttl", false))
+                .put("min", config.getInteger("cache.adaptive-ttl.min", 1))
+                .put("max", config.getInteger("cache.adaptive-ttl.max", 300))
+                .put("hot-hits", config.getInteger("cache.adaptive-ttl.hot-hits", 10))
+                .put("slow-backend", config.getLong("cache.adaptive-ttl.slow-backend", 0L))));
+    }
+
+    static TtlPolicy decode(JsonObject encoded) {
+        JsonObject adaptive = encoded.getJsonObject("adaptive");
+        return new TtlPolicy(encoded.getInteger("ttl"), encoded.getJsonObject("keys"),
+            adaptive.getBoolean("enabled"), adaptive.getInteger("min"), adaptive.getInteger("max"),
+            adaptive.getInteger("hot-hits"), adaptive.getLong("slow-backend"));
+    }
+
+    JsonObject encode() {
+        return new JsonObject()
+            .put("ttl", ttl)
+            .put("keys", keys.copy())
+            .put("adaptive", new JsonObject()
+                .put("enabled", adaptive)
+                .put("min", min)
+                .put("max", max)
+                .put("hot-hits", hotHits)
+                .put("slow-backend", slowBackend));
+    }
+
+    /**
+     * Returns a copy of this policy with the fields present in {@code update} replaced, e.g. {@code {"ttl": 10}}
+     * only changes the global TTL. A {@code null} override in {@code keys} removes it.
+     *
+     * @throws IllegalArgumentException if a field has the wrong type or an invalid value
+     */
+    TtlPolicy merge(JsonObject update) {
+        try {
+            JsonObject mergedKeys = keys.copy();
+            JsonObject keysUpdate = update.getJsonObject("keys", new JsonObject());
+            for (String key : keysUpdate.fieldNames()) {
+                Integer value = keysUpdate.getInteger(key);
+                if (value == null) {
+                    mergedKeys.remove(key);
+                } else {
+                    mergedKeys.put(key, positive(value, "keys." + key));
+                }
+            }
+            JsonObject adaptiveUpdate = update.getJsonObject("adaptive", new JsonObject());
+            TtlPolicy merged = new TtlPolicy(
+                positive(update.getInteger("ttl", ttl), "ttl"),
+                mergedKeys,
+                adaptiveUpdate.getBoolean("enabled", adaptive),
+                positive(adaptiveUpdate.getInteger("min", min), "adaptive.min"),
+                positive(adaptiveUpdate.getInteger("max", max), "adaptive.max"),
+                positive(adaptiveUpdate.getInteger("hot-hits", hotHits), "adaptive.hot-hits"),
+                adaptiveUpdate.getLong("slow-backend", slowBackend));
+            if (merged.min > merged.max) {
+                throw new IllegalArgumentException("Invalid adaptive TTL, min is greater than max");
+            }
+            return merged;
+        } catch (ClassCastException | NullPointerException e) {
+            // Wrong type or explicit null.
+            throw new IllegalArgumentException("Invalid TTL policy");
+        }
+    }
+
+    private static int positive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Invalid " + name + ", a positive number is expected");
+        }
+        return value;
+    }
+
+    int ttl() {
+        return ttl;
+    }
+
+    /**
+     * @return the TTL of the given key before adaptation
+     */
+    int base(String key) {
+        Integer value = keys.getInteger(key);
+        if (value == null) {
+            int slash = key.indexOf('/');
+            if (slash > 0) {
+                value = keys.getInteger(key.substring(0, slash));
+            }
+        }
+        return value != null ? value : ttl;
+    }
+
+    boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Computes the next TTL of an adaptive key.
+     *
+     * @param current     the TTL used for the previous load of the key
+     * @param hits        the number of hits since the previous load
+     * @param invalidated whether the key was removed since the previous load
+     * @param latency     the duration of the load, in milliseconds
+     */
+    int adapt(int current, int hits, boolean invalidated, long latency) {
+        long next = current;
+        if (invalidated) {
+            // The value changes: keep it for a shorter time to avoid serving stale names.
+            next = current / 2;
+        } else if (hits >= hotHits || (slowBackend > 0 && latency >= slowBackend)) {
+            // Hot and stable, or expensive to reload: keep it longer.
+            next = current * 2L;
+        }
+        return (int) Math.max(min, Math.min(max, next));
+    }
+}
@@ -0,0 +1,124 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Preloads the hot keys when the greeting service starts, so it does not serve its first requests cold.
+ * <p>
+ * The keys are the ones listed in {@code warmup.keys} (cache keys, e.g. {@code ["NAME", "acme/fr"]}), followed by
+ * the ones read from the {@code warmup.snapshot} file, written at shutdown with the keys most recently requested
+ * (each {@link CacheVerticle} instance adds its keys with {@link #collect(Vertx, RecentKeys)} when it stops).
+ * At most {@code warmup.max-keys} keys (default 100) are preloaded, {@code warmup.concurrency} at a time (default
+ * 8). Only the keys are saved: the names come from the cache server when another instance stored them, or else from
+ * the cute name service, so a snapshot never brings back a stale name.
+ */
+final class WarmUp {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("Warm-Up");
+
+    private final Vertx vertx;
+    private final List<String> keys;
+    private final String snapshot;
+    private final int maxKeys;
+    private final int concurrency;
+
+    private WarmUp(Vertx vertx, List<String> keys, String snapshot, int maxKeys, int concurrency) {
+        this.vertx = vertx;
+        this.keys = keys;
+        this.snapshot = snapshot;
+        this.maxKeys = maxKeys;
+        this.concurrency = concurrency;
+    }
+
+    static WarmUp create(Vertx vertx, JsonObject config) {
+        return new WarmUp(vertx,
+            strings(config.getJsonArray("warmup.keys", new JsonArray())),
+            config.getString("warmup.snapshot"),
+            config.getInteger("warmup.max-keys", 100),
+            config.getInteger("warmup.concurrency", 8));
+    }
+
+    private static List<String> strings(JsonArray array) {
+        List<String> strings = new ArrayList<>(array.size());
+        for (Object value : array) {
+            if (value instanceof String) {
+                strings.add((String) value);
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * Reads each key through the name cache. Failures are logged and skipped: the preload always completes.
+     */
+    Completable preload(NameCache names) {
+        return keys()
+            .flatMapCompletable(list -> Flowable.fromIterable(list)
+                .flatMapCompletable(key -> names.get(key)
+                    .ignoreElement()
+                    .doOnError(t -> LOGGER.warn("Unable to preload " + key + ": " + t.getMessage()))
+                    .onErrorComplete(), false, concurrency)
+                .doOnComplete(() -> LOGGER.info("Preloaded " + list.size() + " keys")));
+    }
+
+    private Single<List<String>> keys() {
+        Single<List<String>> saved = Single.just(Collections.emptyList());
+        if (snapshot != null) {
+            saved = vertx.fileSystem().rxExists(snapshot)
+                .flatMap(exists -> exists
+                    ? vertx.fileSystem().rxReadFile(snapshot).map(buffer -> strings(buffer.toJsonArray()))
+                    : Single.just(Collections.<String>emptyList()))
+                .onErrorReturn(t -> {
+                    LOGGER.warn("Unable to read the warm-up snapshot " + snapshot, t);
+                    return Collections.emptyList();
+                });
+        }
+        return saved.map(list -> {
+            Set<String> all = new LinkedHashSet<>(keys);
+            all.addAll(list);
+            List<String> selected = new ArrayList<>(all);
+            return selected.subList(0, Math.min(maxKeys, selected.size()));
+        });
+    }
+
+    /**
+     * Adds the keys recently requested from a name cache to the ones written by {@link #save()}.
+     */
+    static void collect(Vertx vertx, RecentKeys recent) {
+        collected(vertx).merge(recent);
+    }
+
+    private static RecentKeys collected(Vertx vertx) {
+        // Unbounded: it only receives the (bounded) keys of each instance.
+        return LocalMaps.putIfAbsent(vertx, "warmup.hot-keys", "warmup.hot-keys", new RecentKeys(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Writes the most recently requested keys to the snapshot file, if configured.
+     */
+    Completable save() {
+        if (snapshot == null) {
+            return Completable.complete();
+        }
+        List<String> hot = collected(vertx).hottest(maxKeys);
+        return vertx.fileSystem()
+            .rxWriteFile(snapshot, Buffer.buffer(new JsonArray(new ArrayList<>(hot)).encode()))
+            .doOnComplete(() -> LOGGER.info("Saved " + hot.size() + " keys to " + snapshot))
+            .doOnError(t -> LOGGER.warn("Unable to write the warm-up snapshot " + snapshot, t))
+            .onErrorComplete();
+    }
+}
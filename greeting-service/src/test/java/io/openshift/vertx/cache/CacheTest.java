@@ -0,0 +1,79 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Single;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class CacheTest {
+
+    private Vertx vertx;
+    private RemoteCache<String, String> remote;
+    private Cache<String, String> cache;
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        remote = InMemoryRemoteCache.create(new CompactMarshaller());
+        cache = Cache.wrap(vertx, remote, new JsonObject().put("cache.batch.size", 2).put("cache.batch.window", 50));
+    }
+
+    @After
+    public void tearDown() {
+        vertx.rxClose().blockingAwait();
+    }
+
+    @Test
+    public void testGetAllMergesNearCacheHitsWithRemoteResults() {
+        cache.put("acme/fr", "Amber Owl", 3600).blockingAwait();
+        assertThat(cache.get("acme/fr").blockingGet()).contains("Amber Owl");
+        // Written behind the near cache: only the near cache copy can be returned.
+        remote.put("acme/fr", "Jade Heron");
+        remote.put("globex/de", "Crimson Fox");
+
+        Map<String, String> found = cache.getAll(new HashSet<>(Arrays.asList("acme/fr", "globex/de", "initech")))
+            .blockingGet();
+        assertThat(found).containsOnly(entry("acme/fr", "Amber Owl"), entry("globex/de", "Crimson Fox"));
+        assertThat(cache.stats().getLong("hits")).isEqualTo(1);
+
+        // The remote results fill the near cache.
+        remote.put("globex/de", "Jade Heron");
+        assertThat(cache.get("globex/de").blockingGet()).contains("Crimson Fox");
+    }
+
+    @Test
+    public void testPutAllAndRemoveAll() {
+        Map<String, String> entries = new HashMap<>();
+        entries.put("acme/fr", "Amber Owl");
+        entries.put("globex/de", "Crimson Fox");
+        cache.putAll(entries, 3600).blockingAwait();
+        assertThat(cache.getAll(entries.keySet()).blockingGet()).isEqualTo(entries);
+
+        cache.removeAll(entries.keySet()).blockingAwait();
+        assertThat(cache.getAll(entries.keySet()).blockingGet()).isEmpty();
+        assertThat(remote.get("acme/fr")).isNull();
+        assertThat(remote.get("globex/de")).isNull();
+    }
+
+    @Test
+    public void testBatchedGetsAreAnsweredFromTheBulkRead() {
+        remote.put("acme/fr", "Amber Owl");
+        // Both reads are sent together, as one bulk read of both keys.
+        List<Optional<String>> found = Single.zip(cache.get("acme/fr"), cache.get("initech"),
+            (hit, miss) -> Arrays.asList(hit, miss)).blockingGet();
+        assertThat(found).containsExactly(Optional.of("Amber Owl"), Optional.empty());
+    }
+}
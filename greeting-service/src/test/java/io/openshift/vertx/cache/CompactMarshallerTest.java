@@ -0,0 +1,66 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactMarshallerTest {
+
+    private final CompactMarshaller marshaller = new CompactMarshaller();
+
+    @Test
+    public void testStringRoundTrip() throws Exception {
+        for (String s : Arrays.asList("", "Crimson Fox", "Renard écarlate", "狐狸", "🦊 Fox 😀")) {
+            byte[] bytes = marshaller.objectToByteBuffer(s);
+            assertThat(Arrays.copyOfRange(bytes, 1, bytes.length)).isEqualTo(s.getBytes(StandardCharsets.UTF_8));
+            assertThat(marshaller.objectFromByteBuffer(bytes)).isEqualTo(s);
+        }
+    }
+
+    @Test
+    public void testUnpairedSurrogatesAreReplaced() throws Exception {
+        for (String s : Arrays.asList("\uD83E", "a\uDD8Ab", "\uDD8A\uD83E", "end\uD83E")) {
+            byte[] bytes = marshaller.objectToByteBuffer(s);
+            assertThat(Arrays.copyOfRange(bytes, 1, bytes.length)).isEqualTo(s.getBytes(StandardCharsets.UTF_8));
+            assertThat(marshaller.objectFromByteBuffer(bytes))
+                .isEqualTo(new String(s.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testTimedValueRoundTrip() throws Exception {
+        String encoded = new TimedValue("Crimson 🦊", 42L).encode();
+        TimedValue decoded = TimedValue.decode((String) marshaller.objectFromByteBuffer(
+            marshaller.objectToByteBuffer(encoded)));
+        assertThat(decoded.value()).isEqualTo("Crimson 🦊");
+        assertThat(decoded.isStale(41L)).isFalse();
+        assertThat(decoded.isStale(42L)).isTrue();
+    }
+
+    @Test
+    public void testJsonObjectRoundTrip() throws Exception {
+        JsonObject json = new JsonObject().put("value", "🦊").put("refresh-at", 42L);
+        assertThat(marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(json))).isEqualTo(json);
+    }
+
+    @Test
+    public void testBytesRoundTrip() throws Exception {
+        byte[] raw = {0, (byte) 0xC1, (byte) 0xFF, 42};
+        assertThat(marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(raw))).isEqualTo(raw);
+        Object buffer = marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(Buffer.buffer(raw)));
+        assertThat(buffer).isInstanceOf(Buffer.class);
+        assertThat(((Buffer) buffer).getBytes()).isEqualTo(raw);
+    }
+
+    @Test
+    public void testReadsValuesWrittenByTheFallbackMarshaller() throws Exception {
+        byte[] bytes = new GenericJBossMarshaller().objectToByteBuffer("Crimson Fox");
+        assertThat(marshaller.objectFromByteBuffer(bytes)).isEqualTo("Crimson Fox");
+    }
+}
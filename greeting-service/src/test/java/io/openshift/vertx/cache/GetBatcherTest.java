@@ -0,0 +1,94 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.vertx.reactivex.core.Vertx;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GetBatcherTest {
+
+    private final Vertx vertx = Vertx.vertx();
+    private final List<Set<String>> batches = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        vertx.rxClose().blockingAwait();
+    }
+
+    private Single<Map<String, String>> bulk(Set<String> keys) {
+        batches.add(keys);
+        Map<String, String> found = new HashMap<>();
+        keys.stream().filter(key -> !key.equals("missing")).forEach(key -> found.put(key, "name-" + key));
+        return Single.just(found);
+    }
+
+    @Test
+    public void testFlushWhenTheBatchIsFull() {
+        GetBatcher<String, String> batcher = new GetBatcher<>(vertx, this::bulk, 3, 60_000);
+        TestObserver<Optional<String>> a = batcher.get("a").test();
+        TestObserver<Optional<String>> b = batcher.get("b").test();
+        assertThat(batches).isEmpty();
+        TestObserver<Optional<String>> missing = batcher.get("missing").test();
+
+        // Sent by the read filling the batch, without waiting for the window.
+        assertThat(batches).containsExactly(set("a", "b", "missing"));
+        a.assertValue(Optional.of("name-a"));
+        b.assertValue(Optional.of("name-b"));
+        missing.assertValue(Optional.empty());
+    }
+
+    @Test
+    public void testFlushWhenTheWindowElapses() {
+        GetBatcher<String, String> batcher = new GetBatcher<>(vertx, this::bulk, 100, 50);
+        TestObserver<Optional<String>> a = batcher.get("a").test();
+        TestObserver<Optional<String>> b = batcher.get("b").test();
+        assertThat(batches).isEmpty();
+
+        a.awaitDone(10, TimeUnit.SECONDS).assertValue(Optional.of("name-a"));
+        b.awaitDone(10, TimeUnit.SECONDS).assertValue(Optional.of("name-b"));
+        assertThat(batches).containsExactly(set("a", "b"));
+    }
+
+    @Test
+    public void testReadsOfTheSameKeyShareTheResult() {
+        GetBatcher<String, String> batcher = new GetBatcher<>(vertx, this::bulk, 2, 50);
+        TestObserver<Optional<String>> first = batcher.get("a").test();
+        TestObserver<Optional<String>> second = batcher.get("a").test();
+
+        first.awaitDone(10, TimeUnit.SECONDS).assertValue(Optional.of("name-a"));
+        second.awaitDone(10, TimeUnit.SECONDS).assertValue(Optional.of("name-a"));
+        // A single distinct key: the batch is not full, the window sends it.
+        assertThat(batches).containsExactly(set("a"));
+    }
+
+    @Test
+    public void testFailuresReachEveryCaller() {
+        IllegalStateException failure = new IllegalStateException("Unavailable");
+        GetBatcher<String, String> batcher = new GetBatcher<>(vertx, keys -> Single.error(failure), 3, 60_000);
+        TestObserver<Optional<String>> a = batcher.get("a").test();
+        TestObserver<Optional<String>> sameKey = batcher.get("a").test();
+        TestObserver<Optional<String>> b = batcher.get("b").test();
+        TestObserver<Optional<String>> c = batcher.get("c").test();
+
+        for (TestObserver<Optional<String>> observer : Arrays.asList(a, sameKey, b, c)) {
+            observer.assertError(failure);
+        }
+    }
+
+    private static Set<String> set(String... keys) {
+        return new HashSet<>(Arrays.asList(keys));
+    }
+}
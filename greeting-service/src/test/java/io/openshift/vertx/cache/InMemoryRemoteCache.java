@@ -0,0 +1,119 @@
+package io.openshift.vertx.cache;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.impl.MetadataValueImpl;
+import org.infinispan.commons.marshall.Marshaller;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for a {@link RemoteCache}, so the client side can be tested and measured without a cache
+ * server. Shared with the benchmarks through the test jar.
+ * <p>
+ * Keys and values are stored marshalled, as they would be sent over the wire, along with a version incremented on
+ * each write. Asynchronous operations complete immediately. Lifespans and flags are ignored (previous values are
+ * always returned) and only the operations used by {@link Cache} are supported.
+ */
+final class InMemoryRemoteCache {
+
+    private InMemoryRemoteCache() {
+        // Avoid direct instantiation.
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> RemoteCache<K, V> create(Marshaller marshaller) {
+        ConcurrentMap<ByteBuffer, Stored> store = new ConcurrentHashMap<>();
+        AtomicLong versions = new AtomicLong();
+        return (RemoteCache<K, V>) Proxy.newProxyInstance(
+            InMemoryRemoteCache.class.getClassLoader(),
+            new Class<?>[]{RemoteCache.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "get":
+                        return read(marshaller, store.get(key(marshaller, args[0])));
+                    case "getAsync":
+                        return CompletableFuture.completedFuture(read(marshaller, store.get(key(marshaller, args[0]))));
+                    case "getWithMetadata":
+                        Stored versioned = store.get(key(marshaller, args[0]));
+                        return versioned == null ? null
+                            : new MetadataValueImpl<>(0, -1, 0, -1, versioned.version, read(marshaller, versioned));
+                    case "put":
+                        store.put(key(marshaller, args[0]), new Stored(marshaller, args[1], versions));
+                        return null;
+                    case "putAsync":
+                        store.put(key(marshaller, args[0]), new Stored(marshaller, args[1], versions));
+                        return CompletableFuture.completedFuture(null);
+                    case "putIfAbsent":
+                        return read(marshaller,
+                            store.putIfAbsent(key(marshaller, args[0]), new Stored(marshaller, args[1], versions)));
+                    case "replaceWithVersion":
+                        ByteBuffer replacedKey = key(marshaller, args[0]);
+                        Stored replaced = store.get(replacedKey);
+                        return replaced != null && replaced.version == (long) args[2]
+                            && store.replace(replacedKey, replaced, new Stored(marshaller, args[1], versions));
+                    case "withFlags":
+                        return proxy;
+                    case "remove":
+                        store.remove(key(marshaller, args[0]));
+                        return null;
+                    case "removeAsync":
+                        store.remove(key(marshaller, args[0]));
+                        return CompletableFuture.completedFuture(null);
+                    case "getAll":
+                        Map<Object, Object> found = new HashMap<>();
+                        for (Object key : (Collection<?>) args[0]) {
+                            Object value = read(marshaller, store.get(key(marshaller, key)));
+                            if (value != null) {
+                                found.put(key, value);
+                            }
+                        }
+                        return found;
+                    case "putAll":
+                    case "putAllAsync":
+                        for (Map.Entry<?, ?> entry : ((Map<?, ?>) args[0]).entrySet()) {
+                            store.put(key(marshaller, entry.getKey()),
+                                new Stored(marshaller, entry.getValue(), versions));
+                        }
+                        return "putAll".equals(method.getName()) ? null : CompletableFuture.completedFuture(null);
+                    case "addClientListener":
+                        return null;
+                    case "getName":
+                        return "in-memory";
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "InMemoryRemoteCache";
+                    default:
+                        throw new UnsupportedOperationException(method.toString());
+                }
+            });
+    }
+
+    private static ByteBuffer key(Marshaller marshaller, Object key) throws Exception {
+        return ByteBuffer.wrap(marshaller.objectToByteBuffer(key));
+    }
+
+    private static Object read(Marshaller marshaller, Stored stored) throws Exception {
+        return stored == null ? null : marshaller.objectFromByteBuffer(stored.bytes);
+    }
+
+    private static final class Stored {
+        private final byte[] bytes;
+        private final long version;
+
+        private Stored(Marshaller marshaller, Object value, AtomicLong versions) throws Exception {
+            this.bytes = marshaller.objectToByteBuffer(value);
+            this.version = versions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NameCacheTest {
+
+    private static final int CONCURRENCY = 64;
+
+    private Vertx vertx;
+    private ExecutorService executor;
+    private final JsonObject config = new JsonObject().put("cache.ttl", 3600);
+    private Cache<String, String> cache;
+    private NameCache names;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        vertx = Vertx.vertx();
+        executor = Executors.newFixedThreadPool(8);
+        cache = Cache.wrap(vertx, InMemoryRemoteCache.create(new CompactMarshaller()), config);
+        names = new NameCache(vertx, cache, this::load, config);
+    }
+
+    private Single<String> load(String key) {
+        calls.incrementAndGet();
+        // The delay keeps the load in flight while the other requests arrive.
+        return Single.just("Crimson Fox").delay(200, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        vertx.rxClose().blockingAwait();
+    }
+
+    @Test
+    public void testConcurrentMissesCallTheBackendOnce() throws Exception {
+        assertThat(getConcurrently(names, "NAME")).containsOnly("Crimson Fox");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    public void testConcurrentMissesAfterExpiryCallTheBackendOnce() throws Exception {
+        getConcurrently(names, "NAME");
+        // The in-memory cache ignores lifespans, an expiry is a removal.
+        names.remove("NAME").blockingAwait();
+        assertThat(getConcurrently(names, "NAME")).containsOnly("Crimson Fox");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    public void testPlainValuesWrittenBeforeTheEnvelopeAreServed() {
+        cache.put("NAME", "Amber Owl", 3600).blockingAwait();
+        assertThat(names.get("NAME").blockingGet()).isEqualTo("Amber Owl");
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    public void testExpiredNamesAreReloaded() {
+        cache.put("NAME", new TimedValue("Amber Owl", System.currentTimeMillis() - 1000).encode(), 3600)
+            .blockingAwait();
+        assertThat(names.isCached("NAME").blockingGet()).isFalse();
+        assertThat(names.get("NAME").blockingGet()).isEqualTo("Crimson Fox");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    public void testExpiredNamesAreServedWhenTheLoadFails() {
+        cache.put("NAME", new TimedValue("Amber Owl", System.currentTimeMillis() - 1000).encode(), 3600)
+            .blockingAwait();
+        NameCache failing = new NameCache(vertx, cache,
+            key -> Single.error(new IllegalStateException("Unavailable")), config);
+        assertThat(failing.get("NAME").blockingGet()).isEqualTo("Amber Owl");
+        failing.get("tenant/fr").test().awaitDone(10, TimeUnit.SECONDS).assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void testStaleNamesAreServedWhileASingleRefreshRuns() throws Exception {
+        NameCache refreshing = new NameCache(vertx, cache, this::load,
+            config.copy().put("cache.refresh-ahead", true).put("cache.stale-ttl", 60));
+        cache.put("NAME", new TimedValue("Amber Owl", System.currentTimeMillis() - 1000).encode(), 3600)
+            .blockingAwait();
+        assertThat(getConcurrently(refreshing, "NAME")).containsOnly("Amber Owl");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!"Crimson Fox".equals(refreshing.get("NAME").blockingGet())) {
+            assertThat(System.nanoTime() - deadline).isNegative();
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    public void testNamesPastTheStaleTtlAreMisses() {
+        NameCache refreshing = new NameCache(vertx, cache, this::load,
+            config.copy().put("cache.refresh-ahead", true).put("cache.stale-ttl", 60));
+        cache.put("NAME", new TimedValue("Amber Owl", System.currentTimeMillis() - 120_000).encode(), 3600)
+            .blockingAwait();
+        assertThat(refreshing.isCached("NAME").blockingGet()).isFalse();
+        assertThat(refreshing.get("NAME").blockingGet()).isEqualTo("Crimson Fox");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    public void testInvalidPolicyUpdatesAreRejected() {
+        for (JsonObject update : Arrays.asList(
+            new JsonObject().put("ttl", -1),
+            new JsonObject().put("ttl", "ten"),
+            new JsonObject().put("adaptive", new JsonObject().put("min", 10).put("max", 5)))) {
+            names.updatePolicy(update).test()
+                .awaitDone(10, TimeUnit.SECONDS)
+                .assertError(IllegalArgumentException.class);
+        }
+        assertThat(names.policy().getInteger("ttl")).isEqualTo(3600);
+        assertThat(cache.getVersioned(NameCache.POLICY_KEY).blockingGet()).isEmpty();
+    }
+
+    @Test
+    public void testConcurrentPolicyUpdatesAreAllApplied() throws Exception {
+        NameCache other = new NameCache(vertx, cache, key -> Single.just("Amber Owl"), config);
+        int updates = 8;
+        List<Future<JsonObject>> results = new ArrayList<>();
+        for (int i = 0; i < updates; i++) {
+            JsonObject update = new JsonObject().put("keys", new JsonObject().put("tenant-" + i, 60 + i));
+            NameCache instance = i % 2 == 0 ? names : other;
+            results.add(executor.submit(() -> instance.updatePolicy(update).blockingGet()));
+        }
+        for (Future<JsonObject> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+
+        // The instances catch up with the stored policy, whichever wrote last.
+        names.reloadPolicy().blockingAwait();
+        other.reloadPolicy().blockingAwait();
+        for (NameCache instance : Arrays.asList(names, other)) {
+            JsonObject keys = instance.policy().getJsonObject("keys");
+            assertThat(keys.size()).isEqualTo(updates);
+            for (int i = 0; i < updates; i++) {
+                assertThat(keys.getInteger("tenant-" + i)).isEqualTo(60 + i);
+            }
+            assertThat(instance.policy().getInteger("ttl")).isEqualTo(3600);
+        }
+    }
+
+    private List<String> getConcurrently(NameCache instance, String key) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<TestObserver<String>> observers = new ArrayList<>();
+        List<CountDownLatch> subscribed = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            TestObserver<String> observer = new TestObserver<>();
+            CountDownLatch done = new CountDownLatch(1);
+            observers.add(observer);
+            subscribed.add(done);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    instance.get(key).subscribe(observer);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            assertThat(subscribed.get(i).await(10, TimeUnit.SECONDS)).isTrue();
+            TestObserver<String> observer = observers.get(i);
+            assertThat(observer.await(10, TimeUnit.SECONDS)).isTrue();
+            observer.assertNoErrors();
+            results.addAll(observer.values());
+        }
+        assertThat(results).hasSize(CONCURRENCY);
+        return results;
+    }
+}
@@ -0,0 +1,110 @@
+package io.openshift.vertx.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCacheTest {
+
+    private final NearCache<String, String> near = new NearCache<>(2, 3600);
+
+    @Test
+    public void testPutIsRejectedAfterAnInvalidationOfTheSameKey() {
+        long token = near.token();
+        near.invalidate("acme/fr");
+        near.put("acme/fr", "Amber Owl", token);
+        assertThat(near.get("acme/fr")).isNull();
+
+        near.put("acme/fr", "Crimson Fox", near.token());
+        assertThat(near.get("acme/fr")).isEqualTo("Crimson Fox");
+    }
+
+    @Test
+    public void testPutIsAcceptedAfterAnInvalidationOfAnotherKey() {
+        long token = near.token();
+        near.invalidate("globex/de");
+        near.put("acme/fr", "Amber Owl", token);
+        assertThat(near.get("acme/fr")).isEqualTo("Amber Owl");
+    }
+
+    @Test
+    public void testTokensBelowTheFloorAreRejectedOnceTombstonesOverflow() {
+        long token = near.token();
+        // Three tombstones for two entries: the first one is forgotten, and raises the floor.
+        near.invalidate("a");
+        near.invalidate("b");
+        near.invalidate("c");
+        near.put("a", "Amber Owl", token);
+        near.put("d", "Amber Owl", token);
+        assertThat(near.get("a")).isNull();
+        assertThat(near.get("d")).isNull();
+
+        near.put("d", "Crimson Fox", near.token());
+        assertThat(near.get("d")).isEqualTo("Crimson Fox");
+    }
+
+    @Test
+    public void testClear() {
+        near.put("a", "Amber Owl", near.token());
+        long token = near.token();
+        near.clear();
+        assertThat(near.get("a")).isNull();
+        assertThat(near.size()).isZero();
+        assertThat(near.invalidations()).isEqualTo(1);
+
+        // Reads started before the clear cannot bring values back.
+        near.put("b", "Crimson Fox", token);
+        assertThat(near.get("b")).isNull();
+        near.put("b", "Crimson Fox", near.token());
+        assertThat(near.get("b")).isEqualTo("Crimson Fox");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        near.put("a", "Amber Owl", near.token());
+        near.put("b", "Crimson Fox", near.token());
+        near.get("a");
+        near.put("c", "Jade Heron", near.token());
+        assertThat(near.size()).isEqualTo(2);
+        assertThat(near.evictions()).isEqualTo(1);
+        assertThat(near.get("b")).isNull();
+        assertThat(near.get("a")).isEqualTo("Amber Owl");
+        assertThat(near.get("c")).isEqualTo("Jade Heron");
+    }
+
+    @Test
+    public void testExpiredEntriesAreEvicted() throws InterruptedException {
+        NearCache<String, String> shortLived = new NearCache<>(10, 1);
+        shortLived.put("a", "Amber Owl", shortLived.token());
+        assertThat(shortLived.get("a")).isEqualTo("Amber Owl");
+        TimeUnit.MILLISECONDS.sleep(1100);
+        assertThat(shortLived.get("a")).isNull();
+        assertThat(shortLived.evictions()).isEqualTo(1);
+        assertThat(shortLived.size()).isZero();
+    }
+
+    @Test
+    public void testCounters() {
+        near.get("a");
+        near.put("a", "Amber Owl", near.token());
+        near.get("a");
+        near.get("a");
+        near.invalidate("a");
+        near.invalidate("b");
+        assertThat(near.hits()).isEqualTo(2);
+        assertThat(near.misses()).isEqualTo(1);
+        // Only the invalidations dropping an entry count.
+        assertThat(near.invalidations()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDisabled() {
+        NearCache<String, String> disabled = new NearCache<>(0, 3600);
+        assertThat(disabled.isEnabled()).isFalse();
+        disabled.put("a", "Amber Owl", disabled.token());
+        assertThat(disabled.get("a")).isNull();
+        assertThat(disabled.size()).isZero();
+    }
+}
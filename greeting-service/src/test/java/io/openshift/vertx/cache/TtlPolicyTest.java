@@ -0,0 +1,74 @@
+package io.openshift.vertx.cache;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TtlPolicyTest {
+
+    private final TtlPolicy policy = TtlPolicy.create(new JsonObject()
+        .put("cache.ttl", 5)
+        .put("cache.key-ttl", new JsonObject().put("acme", 60).put("acme/fr", 120)));
+
+    @Test
+    public void testMergeOnlyChangesThePresentFields() {
+        TtlPolicy merged = policy.merge(new JsonObject()
+            .put("ttl", 10)
+            .put("adaptive", new JsonObject().put("max", 120)));
+        JsonObject encoded = merged.encode();
+        assertThat(encoded.getInteger("ttl")).isEqualTo(10);
+        assertThat(encoded.getJsonObject("keys")).isEqualTo(new JsonObject().put("acme", 60).put("acme/fr", 120));
+        assertThat(encoded.getJsonObject("adaptive").getBoolean("enabled")).isFalse();
+        assertThat(encoded.getJsonObject("adaptive").getInteger("min")).isEqualTo(1);
+        assertThat(encoded.getJsonObject("adaptive").getInteger("max")).isEqualTo(120);
+        // Immutable.
+        assertThat(policy.ttl()).isEqualTo(5);
+    }
+
+    @Test
+    public void testMergeAddsAndRemovesKeyOverrides() {
+        TtlPolicy merged = policy.merge(new JsonObject()
+            .put("keys", new JsonObject().put("globex", 30).putNull("acme/fr")));
+        assertThat(merged.encode().getJsonObject("keys")).isEqualTo(new JsonObject().put("acme", 60).put("globex", 30));
+    }
+
+    @Test
+    public void testBaseUsesTheKeyThenTheTenantThenTheGlobalTtl() {
+        assertThat(policy.base("acme/fr")).isEqualTo(120);
+        assertThat(policy.base("acme/de")).isEqualTo(60);
+        assertThat(policy.base("globex/fr")).isEqualTo(5);
+        assertThat(policy.base(GreetingKey.DEFAULT)).isEqualTo(5);
+    }
+
+    @Test
+    public void testMergeRejectsInvalidValues() {
+        assertInvalid(new JsonObject().put("ttl", 0));
+        assertInvalid(new JsonObject().put("ttl", -1));
+        assertInvalid(new JsonObject().put("keys", new JsonObject().put("acme", -5)));
+        assertInvalid(new JsonObject().put("adaptive", new JsonObject().put("min", 10).put("max", 5)));
+        assertInvalid(new JsonObject().put("adaptive", new JsonObject().put("hot-hits", 0)));
+    }
+
+    @Test
+    public void testMergeRejectsInvalidTypes() {
+        assertInvalid(new JsonObject().put("ttl", "ten"));
+        assertInvalid(new JsonObject().putNull("ttl"));
+        assertInvalid(new JsonObject().put("keys", "acme"));
+        assertInvalid(new JsonObject().put("keys", new JsonObject().put("acme", "long")));
+        assertInvalid(new JsonObject().put("adaptive", true));
+        assertInvalid(new JsonObject().put("adaptive", new JsonObject().put("enabled", "yes")));
+    }
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        TtlPolicy merged = policy.merge(new JsonObject().put("adaptive", new JsonObject()
+            .put("enabled", true).put("slow-backend", 250L)));
+        assertThat(TtlPolicy.decode(merged.encode()).encode()).isEqualTo(merged.encode());
+    }
+
+    private void assertInvalid(JsonObject update) {
+        assertThatThrownBy(() -> policy.merge(update)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,145 @@
+package io.openshift.vertx.cache;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.ext.web.client.HttpResponse;
+import io.vertx.reactivex.ext.web.client.WebClient;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator: {@code connections} concurrent clients each send a request, wait for the
+ * response and send the next one. Latencies are recorded (in microseconds) in an HdrHistogram.
+ * <p>
+ * A response counts as an error when its status is not 200 or when the greeting service could not get a name
+ * ({@code Unable to call the service} message).
+ */
+final class LoadGenerator {
+
+    private final WebClient client;
+    private final List<String> paths;
+    private final int connections;
+
+    LoadGenerator(Vertx vertx, int port, List<String> paths, int connections) {
+        this.client = WebClient.create(vertx, new WebClientOptions()
+            .setDefaultHost("127.0.0.1")
+            .setDefaultPort(port)
+            .setMaxPoolSize(connections)
+            .setKeepAlive(true));
+        this.paths = paths;
+        this.connections = connections;
+    }
+
+    /**
+     * Requests each path once, {@code connections} at a time.
+     */
+    Report once(String phase) {
+        Run run = new Run();
+        Flowable.fromIterable(paths)
+            .flatMapCompletable(run::send, false, connections)
+            .blockingAwait();
+        return run.report(phase);
+    }
+
+    /**
+     * Requests random paths during the given duration.
+     */
+    Report run(String phase, long duration, TimeUnit unit) {
+        Run run = new Run();
+        long deadline = System.nanoTime() + unit.toNanos(duration);
+        Flowable.range(0, connections)
+            .flatMapCompletable(i -> loop(run, deadline))
+            .blockingAwait();
+        return run.report(phase);
+    }
+
+    private Completable loop(Run run, long deadline) {
+        // Repeated rather than chained: a chain grows with each request and overflows the stack on long runs.
+        return Completable.defer(() -> run.send(randomPath()))
+            .repeatUntil(() -> System.nanoTime() - deadline >= 0);
+    }
+
+    private String randomPath() {
+        return paths.get(ThreadLocalRandom.current().nextInt(paths.size()));
+    }
+
+    void close() {
+        client.close();
+    }
+
+    private final class Run {
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+        private final long start = System.nanoTime();
+
+        Completable send(String path) {
+            return Completable.defer(() -> {
+                long begin = System.nanoTime();
+                return client.get(path).rxSend()
+                    .doOnEvent((response, failure) -> {
+                        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin));
+                        if (failure != null || !isSuccess(response)) {
+                            errors.increment();
+                        }
+                    })
+                    .ignoreElement()
+                    .onErrorComplete();
+            });
+        }
+
+        Report report(String phase) {
+            return new Report(phase, recorder.getIntervalHistogram(), errors.sum(), System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isSuccess(HttpResponse<Buffer> response) {
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        JsonObject body = response.bodyAsJsonObject();
+        String message = body == null ? null : body.getString("message");
+        return message != null && !message.startsWith("Unable to call the service");
+    }
+
+    static final class Report {
+        private final String phase;
+        private final Histogram latencies;
+        private final long errors;
+        private final long elapsed;
+
+        private Report(String phase, Histogram latencies, long errors, long elapsed) {
+            this.phase = phase;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsed = elapsed;
+        }
+
+        static String header() {
+            return String.format("%-8s %10s %8s %12s %10s %10s %10s %10s",
+                "phase", "requests", "errors", "req/s", "p50 (ms)", "p99 (ms)", "p999 (ms)", "max (ms)");
+        }
+
+        String format() {
+            long requests = latencies.getTotalCount();
+            return String.format("%-8s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f",
+                phase, requests, errors, requests * 1e9 / elapsed,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.openshift.vertx.cache;
+
+import io.openshift.example.CuteNameServiceVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@code /api/greeting}, running everything in-process: the cute name service, the greeting service
+ * (deployed with {@link MainVerticle}) and a {@link LocalCacheServer} in place of {@code cache-server}.
+ * <p>
+ * Three phases are measured with a {@link LoadGenerator}, over {@code load.keys} tenants:
+ * <ol>
+ * <li>cold: each key is requested once, on an empty cache;</li>
+ * <li>warm: random keys are requested for {@code load.duration} seconds, all of them cached;</li>
+ * <li>expiry: once the TTL ({@code load.ttl}) of the cold entries elapsed, the same load again.</li>
+ * </ol>
+ * Other settings are passed as system properties: {@code load.connections} (concurrent requests) and
+ * {@code load.config}, a JSON object merged into the greeting service configuration, e.g.
+ * {@code -Dload.config='{"cache.refresh-ahead": true}'}.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+        // Avoid direct instantiation.
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int keys = Integer.getInteger("load.keys", 100);
+        int connections = Integer.getInteger("load.connections", 64);
+        int duration = Integer.getInteger("load.duration", 10);
+        int ttl = Integer.getInteger("load.ttl", 30);
+        if (duration >= ttl) {
+            System.out.println("load.duration should be lower than load.ttl: entries expire during the warm phase");
+        }
+
+        int namePort = freePort();
+        int greetingPort = freePort();
+        LocalCacheServer cacheServer = LocalCacheServer.start(freePort());
+        JsonObject config = new JsonObject()
+            .put("http.port", greetingPort)
+            .put("cache.servers", cacheServer.address())
+            .put("cache.ttl", ttl)
+            .put("name-service.host", "127.0.0.1")
+            .put("name-service.port", namePort)
+            .mergeIn(new JsonObject(System.getProperty("load.config", "{}")));
+
+        // The load is generated from another Vert.x instance, so it does not share the event loops of the services.
+        Vertx vertx = Vertx.vertx();
+        Vertx clients = Vertx.vertx();
+        try {
+            vertx.rxDeployVerticle(CuteNameServiceVerticle.class.getName(),
+                new DeploymentOptions().setConfig(new JsonObject().put("http.port", namePort)))
+                .ignoreElement()
+                .andThen(vertx.rxDeployVerticle(MainVerticle.class.getName(),
+                    new DeploymentOptions().setConfig(config)).ignoreElement())
+                .blockingAwait();
+            System.out.println("Greeting service configuration: " + config.encode());
+
+            List<String> paths = new ArrayList<>(keys);
+            for (int i = 0; i < keys; i++) {
+                paths.add("/api/greeting?tenant=tenant-" + i);
+            }
+            LoadGenerator generator = new LoadGenerator(clients, greetingPort, paths, connections);
+            List<LoadGenerator.Report> reports = new ArrayList<>();
+
+            reports.add(generator.once("cold"));
+            long expiry = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl);
+            reports.add(generator.run("warm", duration, TimeUnit.SECONDS));
+            long wait = expiry - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            reports.add(generator.run("expiry", duration, TimeUnit.SECONDS));
+            generator.close();
+
+            System.out.println(LoadGenerator.Report.header());
+            reports.forEach(report -> System.out.println(report.format()));
+        } finally {
+            clients.rxClose().blockingAwait();
+            vertx.rxClose().blockingAwait();
+            cacheServer.stop();
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
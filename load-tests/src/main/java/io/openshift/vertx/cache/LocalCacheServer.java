@@ -0,0 +1,50 @@
+package io.openshift.vertx.cache;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder;
+
+/**
+ * Stand-in for {@code cache-server}: an embedded, non clustered, Infinispan Hot Rod server listening on the
+ * loopback interface, with a single (default) cache.
+ */
+final class LocalCacheServer {
+
+    private final DefaultCacheManager cacheManager;
+    private final HotRodServer server;
+    private final int port;
+
+    private LocalCacheServer(DefaultCacheManager cacheManager, HotRodServer server, int port) {
+        this.cacheManager = cacheManager;
+        this.server = server;
+        this.port = port;
+    }
+
+    static LocalCacheServer start(int port) {
+        DefaultCacheManager cacheManager = new DefaultCacheManager(
+            new GlobalConfigurationBuilder().nonClusteredDefault().defaultCacheName("default").build(),
+            new ConfigurationBuilder().build());
+        HotRodServer server = new HotRodServer();
+        try {
+            server.start(new HotRodServerConfigurationBuilder().host("127.0.0.1").port(port).build(), cacheManager);
+        } catch (RuntimeException e) {
+            cacheManager.stop();
+            throw e;
+        }
+        return new LocalCacheServer(cacheManager, server, port);
+    }
+
+    /**
+     * @return the address of the server, in the {@code cache.servers} format
+     */
+    String address() {
+        return "127.0.0.1:" + port;
+    }
+
+    void stop() {
+        server.stop();
+        cacheManager.stop();
+    }
+}